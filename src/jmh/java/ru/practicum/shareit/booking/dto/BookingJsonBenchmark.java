@@ -0,0 +1,64 @@
+package ru.practicum.shareit.booking.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.item.dto.ItemIdAndNameDto;
+import ru.practicum.shareit.user.dto.UserIdOnlyDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация списка бронирований так, как ее выполняет MappingJackson2HttpMessageConverter:
+ * ObjectMapper из Jackson2ObjectMapperBuilder с теми же модулями и настройками дат, что у Spring Boot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookingJsonBenchmark {
+    @Param({"100", "10000"})
+    private int size;
+
+    private ObjectWriter writer;
+    private List<BookingDto> bookings;
+
+    @Setup
+    public void setUp() {
+        writer = Jackson2ObjectMapperBuilder.json().build().writerFor(List.class);
+        LocalDateTime start = LocalDateTime.of(2026, 11, 1, 10, 0);
+        bookings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            BookingDto booking = new BookingDto();
+            booking.setId(i);
+            booking.setStart(start.plusHours(i));
+            booking.setEnd(start.plusHours(i + 1));
+            booking.setItem(ItemIdAndNameDto.builder().id((long) i % 500).name("Дрель " + i % 500).build());
+            booking.setBooker(UserIdOnlyDto.builder().id((long) i % 1000).build());
+            booking.setStatus(BookingStatus.values()[i % BookingStatus.values().length]);
+            bookings.add(booking);
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return writer.writeValueAsBytes(bookings);
+    }
+}
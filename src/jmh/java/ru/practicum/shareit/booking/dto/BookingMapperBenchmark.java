@@ -0,0 +1,102 @@
+package ru.practicum.shareit.booking.dto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сущности созданы без Hibernate: замеряется только сам мапинг, без ленивой загрузки связей.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookingMapperBenchmark {
+    private Booking booking;
+    private BookingView bookingView;
+
+    @Setup
+    public void setUp() {
+        User booker = new User();
+        booker.setId(2L);
+        booker.setName("Бронирующий");
+        booker.setEmail("booker@example.com");
+
+        Item item = new Item();
+        item.setId(10L);
+        item.setName("Дрель");
+        item.setDescription("Ударная дрель");
+        item.setAvailable(true);
+
+        booking = new Booking();
+        booking.setId(100L);
+        booking.setStart(LocalDateTime.of(2026, 11, 1, 10, 0));
+        booking.setEnd(LocalDateTime.of(2026, 11, 2, 10, 0));
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(BookingStatus.APPROVED);
+
+        bookingView = new BookingView() {
+            @Override
+            public Long getId() {
+                return booking.getId();
+            }
+
+            @Override
+            public LocalDateTime getStart() {
+                return booking.getStart();
+            }
+
+            @Override
+            public LocalDateTime getEnd() {
+                return booking.getEnd();
+            }
+
+            @Override
+            public BookingStatus getStatus() {
+                return booking.getStatus();
+            }
+
+            @Override
+            public Long getItemId() {
+                return item.getId();
+            }
+
+            @Override
+            public String getItemName() {
+                return item.getName();
+            }
+
+            @Override
+            public Long getBookerId() {
+                return booker.getId();
+            }
+        };
+    }
+
+    @Benchmark
+    public BookingDto mapEntity() {
+        return BookingMapper.mapToBookingDto(booking);
+    }
+
+    @Benchmark
+    public BookingDto mapView() {
+        return BookingMapper.mapToBookingDto(bookingView);
+    }
+}
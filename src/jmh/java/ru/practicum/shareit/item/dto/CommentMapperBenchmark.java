@@ -0,0 +1,46 @@
+package ru.practicum.shareit.item.dto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommentMapperBenchmark {
+    private Comment comment;
+
+    @Setup
+    public void setUp() {
+        User author = new User();
+        author.setId(2L);
+        author.setName("Автор");
+        author.setEmail("author@example.com");
+
+        comment = new Comment();
+        comment.setId(1L);
+        comment.setAuthor(author);
+        comment.setText("Отличная дрель, спасибо");
+        comment.setCreated(LocalDateTime.of(2026, 10, 1, 10, 0));
+    }
+
+    @Benchmark
+    public CommentDto mapToCommentDto() {
+        return CommentMapper.mapToCommentDto(comment);
+    }
+}
@@ -0,0 +1,66 @@
+package ru.practicum.shareit.item.dto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItemMapperBenchmark {
+    @Param({"0", "10", "1000"})
+    private int comments;
+
+    private Item item;
+    private List<Comment> itemComments;
+
+    @Setup
+    public void setUp() {
+        item = new Item();
+        item.setId(10L);
+        item.setName("Дрель");
+        item.setDescription("Ударная дрель");
+        item.setAvailable(true);
+
+        User author = new User();
+        author.setId(2L);
+        author.setName("Автор");
+        author.setEmail("author@example.com");
+
+        LocalDateTime created = LocalDateTime.of(2026, 10, 1, 10, 0);
+        itemComments = new ArrayList<>(comments);
+        for (int i = 0; i < comments; i++) {
+            Comment itemComment = new Comment();
+            itemComment.setId((long) i);
+            itemComment.setItem(item);
+            itemComment.setAuthor(author);
+            itemComment.setText("Отличная дрель, спасибо " + i);
+            itemComment.setCreated(created.plusMinutes(i));
+            itemComments.add(itemComment);
+        }
+    }
+
+    @Benchmark
+    public ItemDto mapToItemDto() {
+        return ItemMapper.mapToItemDto(item, itemComments);
+    }
+}
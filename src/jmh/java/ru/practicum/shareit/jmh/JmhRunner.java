@@ -0,0 +1,127 @@
+package ru.practicum.shareit.jmh;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Запускает JMH-бенчмарки и сравнивает результат с базовым src/jmh/baseline/jmh-baseline.json.
+ *
+ * <p>Аргументы, кроме собственных, передаются JMH как есть (например, регулярное выражение
+ * с именами бенчмарков или -f 3):
+ * <ul>
+ *     <li>--update-baseline — сохранить результат прогона как новый базовый;</li>
+ *     <li>--compare=old.json,new.json — только сравнить два готовых результата.</li>
+ * </ul>
+ */
+public class JmhRunner {
+    private static final Path BASELINE = Path.of("src/jmh/baseline/jmh-baseline.json");
+    private static final Path RESULTS = Path.of("target/jmh");
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String UPDATE_BASELINE = "--update-baseline";
+    private static final String COMPARE = "--compare=";
+
+    public static void main(String[] args) throws Exception {
+        List<String> jmhArgs = new ArrayList<>();
+        boolean updateBaseline = false;
+        for (String arg : args) {
+            if (arg.startsWith(COMPARE)) {
+                String[] files = arg.substring(COMPARE.length()).split(",");
+                compare(Path.of(files[0]), Path.of(files[1]));
+                return;
+            }
+            if (arg.equals(UPDATE_BASELINE)) {
+                updateBaseline = true;
+            } else {
+                jmhArgs.add(arg);
+            }
+        }
+
+        Files.createDirectories(RESULTS);
+        Path result = RESULTS.resolve("jmh-" + FILE_TIMESTAMP.format(LocalDateTime.now()) + ".json");
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(jmhArgs.toArray(String[]::new)))
+                .resultFormat(ResultFormatType.JSON)
+                .result(result.toString())
+                .build())
+                .run();
+
+        if (updateBaseline) {
+            Files.createDirectories(BASELINE.getParent());
+            Files.copy(result, BASELINE, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Базовый результат обновлен: " + BASELINE);
+        } else if (Files.exists(BASELINE)) {
+            compare(BASELINE, result);
+        }
+    }
+
+    /**
+     * Изменение считается значимым, только если доверительные интервалы (score ± error) не пересекаются.
+     */
+    private static void compare(Path before, Path after) throws IOException {
+        Map<String, JsonNode> baseline = read(before);
+        System.out.printf("%-70s %16s %16s %9s%n", "benchmark", "before", "after", "change");
+        for (Map.Entry<String, JsonNode> entry : read(after).entrySet()) {
+            JsonNode old = baseline.get(entry.getKey());
+            if (old == null) {
+                continue;
+            }
+            JsonNode oldMetric = old.get("primaryMetric");
+            JsonNode newMetric = entry.getValue().get("primaryMetric");
+            double oldScore = oldMetric.get("score").asDouble();
+            double newScore = newMetric.get("score").asDouble();
+            double oldError = error(oldMetric);
+            double newError = error(newMetric);
+            boolean lowerIsBetter = !"thrpt".equals(entry.getValue().get("mode").asText());
+            boolean significant = oldScore + oldError < newScore - newError
+                    || newScore + newError < oldScore - oldError;
+            String verdict = !significant ? "" : (newScore < oldScore) == lowerIsBetter ? " faster" : " SLOWER";
+
+            System.out.printf(Locale.ROOT, "%-70s %16s %16s %+8.1f%%%s%n",
+                    entry.getKey(),
+                    format(oldScore, oldError, oldMetric.get("scoreUnit").asText()),
+                    format(newScore, newError, newMetric.get("scoreUnit").asText()),
+                    (newScore / oldScore - 1) * 100, verdict);
+        }
+    }
+
+    private static Map<String, JsonNode> read(Path file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file.toFile())) {
+            String benchmark = result.get("benchmark").asText().replace("ru.practicum.shareit.", "");
+            JsonNode params = result.get("params");
+            if (params != null) {
+                List<String> values = new ArrayList<>();
+                params.fields().forEachRemaining(param -> values.add(param.getKey() + "=" + param.getValue().asText()));
+                benchmark += values.stream().collect(Collectors.joining(",", "[", "]"));
+            }
+            results.put(benchmark, result);
+        }
+        return results;
+    }
+
+    private static double error(JsonNode metric) {
+        double error = metric.get("scoreError").asDouble();
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    private static String format(double score, double error, String unit) {
+        return String.format(Locale.ROOT, "%.1f±%.1f %s", score, error, unit.replace("/op", ""));
+    }
+}
@@ -0,0 +1,46 @@
+package ru.practicum.shareit.user;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Регулярное выражение UserServiceImpl на обычных адресах и на длинном домене без зоны,
+ * где [A-Z0-9.-]+ перед \.[A-Z]{2,6}$ перебирает все точки домена.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmailValidationBenchmark {
+    @Param({"valid", "invalid", "long-domain"})
+    private String input;
+
+    private String email;
+
+    @Setup
+    public void setUp() {
+        email = switch (input) {
+            case "valid" -> "ivan.petrov+shareit@mail.example.com";
+            case "invalid" -> "ivan.petrov.mail.example.com";
+            default -> "user@" + "a.".repeat(500) + "1";
+        };
+    }
+
+    @Benchmark
+    public boolean isEmailValid() {
+        return UserServiceImpl.isEmailValid(email);
+    }
+}
@@ -0,0 +1,258 @@
+package ru.practicum.shareit.load;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Заполняет базу большим набором данных через COPY: пользователи, вещи, бронирования и отзывы.
+ * Распределения неравномерные: вещи сосредоточены у части владельцев, а бронирования и поиск — на популярных
+ * вещах и активных пользователях (закон Ципфа).
+ * Бронирования одной вещи не пересекаются и покрывают history в прошлом и horizon в будущем.
+ * Статусы зависят от времени: прошедшие почти все подтверждены, будущие ждут решения или подтверждены.
+ * Отзывы оставляют арендаторы прошедших подтвержденных бронирований.
+ *
+ * <p>Перед загрузкой все таблицы очищаются, поэтому приложение должно быть остановлено, а схема — уже создана
+ * его предыдущим запуском. item_booking_summaries остается пустой и заполняется schema.sql при следующем старте.
+ * Набор воспроизводим при одном и том же seed, даты отсчитываются от момента генерации.
+ *
+ * <p>Отдельный запуск: {@code mvn -Pload test-compile exec:java -Dload.main=ru.practicum.shareit.load.DatasetGenerator
+ * -Dexec.args="--bookings=1000000"}.
+ */
+public class DatasetGenerator {
+    static final String[] NOUNS = {"drill", "saw", "ladder", "tent", "bike", "guitar", "camera", "kayak",
+            "projector", "hammer", "sander", "mixer", "scooter", "boat", "tripod", "grill", "speaker", "stroller",
+            "snowboard", "skis", "helmet", "lens", "drone", "compressor", "generator", "trailer", "wrench", "vacuum",
+            "heater", "jack", "chainsaw", "microscope", "telescope", "keyboard", "piano", "violin", "easel",
+            "sewing-machine", "printer", "monitor", "console", "sleeping-bag", "backpack", "canoe", "paddle",
+            "lantern", "cooler", "hammock", "mower", "trimmer"};
+    private static final String[] ADJECTIVES = {"cordless", "old", "new", "large", "compact", "professional",
+            "folding", "electric", "manual", "vintage", "portable", "heavy", "light", "family", "kids"};
+    private static final String[] COMMENT_WORDS = {"great", "worked", "fine", "clean", "as", "described",
+            "owner", "was", "helpful", "battery", "died", "quickly", "would", "rent", "again", "a", "bit", "worn"};
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String NULL = "\\N";
+
+    private final LoadOptions options;
+    private final SplittableRandom random;
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+
+    public DatasetGenerator(LoadOptions options) {
+        this.options = options;
+        this.random = new SplittableRandom(options.getLong("seed", 42));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new DatasetGenerator(new LoadOptions(args)).generate();
+    }
+
+    public static Connection connect(LoadOptions options) throws SQLException {
+        return DriverManager.getConnection(
+                options.get("jdbc-url", "jdbc:postgresql://localhost:5432/shareit"),
+                options.get("db-user", "dbuser"),
+                options.get("db-password", "12345"));
+    }
+
+    public static boolean schemaExists(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT to_regclass('bookings') IS NOT NULL")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    public void generate() throws SQLException, IOException {
+        int users = options.getInt("users", 100_000);
+        int items = options.getInt("items", 200_000);
+        int bookings = options.getInt("bookings", 1_000_000);
+        int comments = options.getInt("comments", 100_000);
+        double ownerShare = options.getDouble("owner-share", 0.2);
+        double skew = options.getDouble("skew", 0.8);
+        Duration history = Duration.parse(options.get("history", "P730D"));
+        Duration horizon = Duration.parse(options.get("horizon", "P90D"));
+
+        try (Connection connection = connect(options)) {
+            if (!schemaExists(connection)) {
+                throw new IllegalStateException("Схема не создана: приложение нужно запустить хотя бы один раз");
+            }
+            connection.setAutoCommit(false);
+            long started = System.nanoTime();
+            execute(connection, "TRUNCATE comments, bookings, item_booking_summaries, items, requests, users " +
+                    "RESTART IDENTITY CASCADE");
+
+            copy(connection, "users (id, name, email)", out -> {
+                for (long id = 1; id <= users; id++) {
+                    row(out, id, "user " + id, "user" + id + "@load.example.com");
+                }
+            });
+
+            int[] userByRank = permutation(users);
+            int[] owners = new int[Math.max(1, (int) (users * ownerShare))];
+            System.arraycopy(permutation(users), 0, owners, 0, owners.length);
+            ZipfSampler ownerSampler = new ZipfSampler(owners.length, skew, random);
+            ZipfSampler nounSampler = new ZipfSampler(NOUNS.length, skew, random);
+            long[] itemOwner = new long[items];
+            copy(connection, "items (id, name, description, is_available, owner_id)", out -> {
+                for (int i = 0; i < items; i++) {
+                    long id = i + 1;
+                    itemOwner[i] = owners[ownerSampler.next()] + 1;
+                    String noun = NOUNS[nounSampler.next()];
+                    row(out, id, pick(ADJECTIVES) + " " + noun,
+                            noun + " for rent, " + pick(ADJECTIVES) + " " + pick(ADJECTIVES) + ", lot " + id,
+                            random.nextDouble() < 0.9, itemOwner[i]);
+                }
+            });
+
+            int[] bookingsPerItem = new int[items];
+            int[] itemByRank = permutation(items);
+            ZipfSampler itemSampler = new ZipfSampler(items, skew, random);
+            for (int i = 0; i < bookings; i++) {
+                bookingsPerItem[itemByRank[itemSampler.next()]]++;
+            }
+
+            ZipfSampler bookerSampler = new ZipfSampler(users, skew, random);
+            LocalDateTime from = now.minus(history);
+            long window = history.plus(horizon).toSeconds();
+            double pastApproved = bookings * 0.85 * history.toSeconds() / window;
+            double commentChance = Math.min(1, comments / Math.max(1, pastApproved));
+            List<String[]> commentRows = new ArrayList<>();
+            long[] bookingId = {0};
+            // Бронирования одной вещи генерируются без пересечений, построчная проверка триггером не нужна.
+            // Загрузка идет одной транзакцией, поэтому при ошибке триггер остается включенным
+            execute(connection, "ALTER TABLE bookings DISABLE TRIGGER USER");
+            copy(connection, "bookings (id, start_date, end_date, item_id, booker_id, status)", out -> {
+                for (int i = 0; i < items; i++) {
+                    int count = bookingsPerItem[i];
+                    long slot = window / Math.max(1, count);
+                    for (int k = 0; k < count; k++) {
+                        LocalDateTime start = from.plusSeconds(k * slot + (long) (random.nextDouble() * slot * 0.3));
+                        long length = Math.max(1, (long) (slot * (0.2 + random.nextDouble() * 0.4)));
+                        LocalDateTime end = start.plusSeconds(length);
+                        long booker = userByRank[bookerSampler.next()] + 1;
+                        while (booker == itemOwner[i]) {
+                            booker = userByRank[bookerSampler.next()] + 1;
+                        }
+                        String status = status(start, end);
+                        row(out, ++bookingId[0], TIMESTAMP.format(start), TIMESTAMP.format(end), i + 1, booker,
+                                status);
+
+                        if ("APPROVED".equals(status) && end.isBefore(now) && random.nextDouble() < commentChance) {
+                            LocalDateTime created = end.plusMinutes(random.nextInt(72 * 60));
+                            commentRows.add(new String[]{commentText(), String.valueOf(i + 1),
+                                    String.valueOf(booker), TIMESTAMP.format(created.isAfter(now) ? now : created)});
+                        }
+                    }
+                }
+            });
+            execute(connection, "ALTER TABLE bookings ENABLE TRIGGER USER");
+
+            copy(connection, "comments (id, text, item_id, author_id, created)", out -> {
+                long id = 0;
+                for (String[] comment : commentRows) {
+                    row(out, ++id, comment[0], comment[1], comment[2], comment[3]);
+                }
+            });
+
+            for (String table : List.of("users", "items", "bookings", "comments")) {
+                execute(connection, "SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), " +
+                        "(SELECT COALESCE(MAX(id), 0) + 50 FROM " + table + "))");
+            }
+            connection.commit();
+            connection.setAutoCommit(true);
+            execute(connection, "ANALYZE users, items, bookings, comments");
+
+            System.out.printf("Загружено за %d с: %d пользователей, %d вещей, %d бронирований, %d отзывов%n",
+                    Duration.ofNanos(System.nanoTime() - started).toSeconds(),
+                    users, items, bookingId[0], commentRows.size());
+        }
+    }
+
+    private String status(LocalDateTime start, LocalDateTime end) {
+        double chance = random.nextDouble();
+        if (end.isBefore(now)) {
+            return chance < 0.85 ? "APPROVED" : chance < 0.92 ? "REJECTED" : "CANCELED";
+        }
+        if (start.isBefore(now)) {
+            return "APPROVED";
+        }
+        return chance < 0.55 ? "APPROVED" : chance < 0.95 ? "WAITING" : "REJECTED";
+    }
+
+    private String commentText() {
+        StringBuilder text = new StringBuilder(pick(COMMENT_WORDS));
+        int words = 3 + random.nextInt(12);
+        for (int i = 0; i < words; i++) {
+            text.append(' ').append(pick(COMMENT_WORDS));
+        }
+        return text.toString();
+    }
+
+    private String pick(String[] words) {
+        return words[random.nextInt(words.length)];
+    }
+
+    /**
+     * Случайная перестановка 0..n-1: популярность не должна совпадать с порядком идентификаторов.
+     */
+    private int[] permutation(int n) {
+        int[] permutation = new int[n];
+        for (int i = 0; i < n; i++) {
+            permutation[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = swap;
+        }
+        return permutation;
+    }
+
+    @FunctionalInterface
+    private interface Rows {
+        void write(Writer out) throws IOException;
+    }
+
+    private static void copy(Connection connection, String table, Rows rows) throws SQLException, IOException {
+        PGConnection pg = connection.unwrap(PGConnection.class);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new PGCopyOutputStream(pg, "COPY " + table + " FROM STDIN"), StandardCharsets.UTF_8), 1 << 16)) {
+            rows.write(out);
+        }
+    }
+
+    /**
+     * Строка в текстовом формате COPY. Значения генератора не содержат табуляций, переводов строк и обратных слэшей.
+     */
+    private static void row(Writer out, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write('\t');
+            }
+            out.write(values[i] == null ? NULL : values[i].toString());
+        }
+        out.write('\n');
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package ru.practicum.shareit.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Импорт вещей через POST /items/batch пачками по --batch вещей (по умолчанию 10 000, предел эндпоинта).
+ * Кроме задержки пачки считаются вещи в секунду и число подготовленных JDBC-выражений на пачку
+ * по метрике hibernate.statements{status=prepared}: вставки идут пачками JDBC по
+ * hibernate.jdbc.batch_size, а идентификаторы берутся из последовательностей с шагом 50,
+ * поэтому выражений на пачку должно быть на порядки меньше, чем вещей.
+ * По умолчанию один клиент, чтобы перцентили отражали время самого импорта, а не ожидание блокировок.
+ *
+ * <p>Запуск: {@code mvn -Pload -DskipTests package exec:java -Dload.main=ru.practicum.shareit.load.ImportBenchmark
+ * -Dexec.args="--jdbc-url=jdbc:postgresql://localhost:5432/shareit_load"}.
+ * Результаты пишутся в target/load/import-&lt;label&gt;-*.csv.
+ */
+public class ImportBenchmark {
+    private static final String CSV_HEADER =
+            "mode,scenario,concurrency,batch,batches,errors,items_per_second,p50,p99,statements_per_batch";
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String PREPARED_STATEMENTS = "/actuator/metrics/hibernate.statements?tag=status:prepared";
+
+    private final LoadOptions options;
+    private final LoadClient client;
+
+    private ImportBenchmark(LoadOptions options) {
+        this.options = options;
+        this.client = new LoadClient(options.get("base-url", "http://localhost:8080"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = new LoadOptions(args);
+        if (options.has("compare")) {
+            String[] files = options.get("compare", "").split(",");
+            compare(Path.of(files[0]), Path.of(files[1]));
+            return;
+        }
+        new ImportBenchmark(options).run();
+    }
+
+    private void run() throws Exception {
+        Path out = Path.of(options.get("out", "target/load"));
+        Files.createDirectories(out);
+        String mode = options.getBoolean("virtual", false) ? "virtual" : "platform";
+        int concurrency = options.getInt("concurrency", 1);
+        int batch = options.getInt("batch", 10000);
+        Duration warmup = Duration.parse(options.get("warmup", "PT10S"));
+        Duration duration = Duration.parse(options.get("duration", "PT30S"));
+
+        List<Map<String, Object>> items = new ArrayList<>(batch);
+        for (int i = 0; i < batch; i++) {
+            items.add(Map.of("name", "Вещь " + i, "description", "Импортированная вещь, лот " + i,
+                    "available", i % 10 != 0));
+        }
+
+        List<ImportResult> results = new ArrayList<>();
+        try (ShareItProcess ignored = ShareItProcess.start(options.get("jar", "target/shareit-0.0.1-SNAPSHOT.jar"),
+                appArgs(), out.resolve("app-import.log").toFile(), client)) {
+            long ownerId = client.postForJson("/users", null, Map.of("name", "import",
+                    "email", "import-" + System.currentTimeMillis() + "@load.example.com")).get("id").asLong();
+            LoadRunner.Request request = () -> client.post("/items/batch", ownerId, items);
+            String scenario = "POST /items/batch " + batch;
+
+            if (!warmup.isZero()) {
+                new LoadRunner(concurrency, Duration.ZERO, warmup).run(mode, scenario, request);
+            }
+            double statementsBefore = preparedStatements();
+            ScenarioResult result = new LoadRunner(concurrency, Duration.ZERO, duration).run(mode, scenario, request);
+            double statements = preparedStatements() - statementsBefore;
+            long imported = result.requests() - result.errors();
+            results.add(new ImportResult(mode, scenario, concurrency, batch, result.requests(), result.errors(),
+                    result.requests() == 0 ? 0 : result.throughput() * batch * imported / result.requests(),
+                    result.p50(), result.p99(), result.requests() == 0 ? 0 : statements / result.requests()));
+        }
+
+        Path file = out.resolve("import-" + options.get("label", "current") + "-"
+                + FILE_TIMESTAMP.format(LocalDateTime.now()) + ".csv");
+        List<String> lines = new ArrayList<>();
+        lines.add(CSV_HEADER);
+        results.forEach(result -> lines.add(result.toCsv()));
+        Files.write(file, lines);
+
+        System.out.println();
+        System.out.printf("%-8s %-26s %5s %7s %8s %7s %10s %9s %9s %12s%n",
+                "mode", "scenario", "conc", "batch", "batches", "errors", "items/s", "p50 ms", "p99 ms", "stmts/batch");
+        results.forEach(System.out::println);
+        System.out.println("Результаты: " + file);
+    }
+
+    private double preparedStatements() throws IOException, InterruptedException {
+        JsonNode metric = client.getForJson(PREPARED_STATEMENTS);
+        return metric.get("measurements").get(0).get("value").asDouble();
+    }
+
+    private static void compare(Path before, Path after) throws IOException {
+        Map<String, ImportResult> baseline = new HashMap<>();
+        for (ImportResult result : read(before)) {
+            baseline.put(result.mode() + result.scenario(), result);
+        }
+        System.out.printf("%-8s %-26s %14s %14s %10s %10s %10s %10s %10s %12s %12s%n",
+                "mode", "scenario", "items/s before", "items/s after", "items/s",
+                "p50 before", "p50 after", "p99 before", "p99 after", "stmts before", "stmts after");
+        for (ImportResult result : read(after)) {
+            ImportResult old = baseline.get(result.mode() + result.scenario());
+            if (old == null) {
+                continue;
+            }
+            System.out.printf(Locale.ROOT,
+                    "%-8s %-26s %14.1f %14.1f %+9.1f%% %10.2f %10.2f %10.2f %10.2f %12.1f %12.1f%n",
+                    result.mode(), result.scenario(), old.itemsPerSecond(), result.itemsPerSecond(),
+                    (result.itemsPerSecond() / old.itemsPerSecond() - 1) * 100,
+                    old.p50(), result.p50(), old.p99(), result.p99(),
+                    old.statementsPerBatch(), result.statementsPerBatch());
+        }
+    }
+
+    private static List<ImportResult> read(Path file) throws IOException {
+        return Files.readAllLines(file).stream()
+                .skip(1)
+                .map(ImportResult::fromCsv)
+                .toList();
+    }
+
+    private List<String> appArgs() {
+        List<String> appArgs = new ArrayList<>();
+        appArgs.add("--spring.datasource.url=" + options.get("jdbc-url", "jdbc:postgresql://localhost:5432/shareit"));
+        appArgs.add("--spring.datasource.username=" + options.get("db-user", "dbuser"));
+        appArgs.add("--spring.datasource.password=" + options.get("db-password", "12345"));
+        appArgs.add("--spring.threads.virtual.enabled=" + options.getBoolean("virtual", false));
+        appArgs.addAll(ShareItProcess.QUIET_LOGGING);
+        appArgs.addAll(Arrays.asList(options.get("app-args", "").split(" ")));
+        appArgs.removeIf(String::isBlank);
+        return appArgs;
+    }
+
+    /**
+     * Итог прогона импорта: вещи в секунду, перцентили задержки пачки в миллисекундах
+     * и подготовленные JDBC-выражения на пачку.
+     */
+    private record ImportResult(String mode, String scenario, int concurrency, int batch, long batches, long errors,
+                                double itemsPerSecond, double p50, double p99, double statementsPerBatch) {
+
+        static ImportResult fromCsv(String line) {
+            String[] fields = line.split(",");
+            return new ImportResult(fields[0], fields[1], Integer.parseInt(fields[2]), Integer.parseInt(fields[3]),
+                    Long.parseLong(fields[4]), Long.parseLong(fields[5]), Double.parseDouble(fields[6]),
+                    Double.parseDouble(fields[7]), Double.parseDouble(fields[8]), Double.parseDouble(fields[9]));
+        }
+
+        String toCsv() {
+            return String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%d,%.1f,%.2f,%.2f,%.1f",
+                    mode, scenario, concurrency, batch, batches, errors, itemsPerSecond, p50, p99, statementsPerBatch);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-8s %-26s %5d %7d %8d %7d %10.1f %9.2f %9.2f %12.1f",
+                    mode, scenario, concurrency, batch, batches, errors, itemsPerSecond, p50, p99, statementsPerBatch);
+        }
+    }
+}
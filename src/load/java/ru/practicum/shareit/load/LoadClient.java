@@ -0,0 +1,94 @@
+package ru.practicum.shareit.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * HTTP-клиент нагрузочных сценариев: заголовок пользователя, JSON в теле и в ответе.
+ */
+public class LoadClient {
+    private static final String SHARER_HEADER = "X-Sharer-User-Id";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String baseUrl;
+
+    public LoadClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public int get(String path, long sharerId) throws IOException, InterruptedException {
+        return send(request(path, sharerId).GET().build()).statusCode();
+    }
+
+    public int post(String path, Long sharerId, Object body) throws IOException, InterruptedException {
+        HttpRequest.Builder request = sharerId == null ? request(path) : request(path, sharerId);
+        return send(request
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body)))
+                .build()).statusCode();
+    }
+
+    /**
+     * POST, ответ которого нужен дальше: создание пользователей и вещей при заполнении данных.
+     */
+    public JsonNode postForJson(String path, Long sharerId, Object body) throws IOException, InterruptedException {
+        HttpRequest.Builder request = sharerId == null ? request(path) : request(path, sharerId);
+        HttpResponse<String> response = send(request
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body)))
+                .build());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException("POST " + path + " вернул " + response.statusCode() + ": "
+                    + response.body());
+        }
+        return mapper.readTree(response.body());
+    }
+
+    /**
+     * GET без пользователя, ответ которого нужен дальше: метрики приложения.
+     */
+    public JsonNode getForJson(String path) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(request(path).GET().build());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET " + path + " вернул " + response.statusCode() + ": "
+                    + response.body());
+        }
+        return mapper.readTree(response.body());
+    }
+
+    public boolean isUp() {
+        try {
+            HttpResponse<String> response = send(request("/actuator/health").GET().build());
+            return response.statusCode() == 200 && response.body().contains("UP");
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private HttpRequest.Builder request(String path, long sharerId) {
+        return request(path).header(SHARER_HEADER, Long.toString(sharerId));
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT);
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
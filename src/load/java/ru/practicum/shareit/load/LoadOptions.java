@@ -0,0 +1,42 @@
+package ru.practicum.shareit.load;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Параметры нагрузочных прогонов в виде --name=value. Флаг без значения считается равным true.
+ */
+public class LoadOptions {
+    private final Map<String, String> options = new HashMap<>();
+
+    public LoadOptions(String[] args) {
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "true");
+        }
+    }
+
+    public boolean has(String name) {
+        return options.containsKey(name);
+    }
+
+    public String get(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    public int getInt(String name, int defaultValue) {
+        return has(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+    }
+
+    public long getLong(String name, long defaultValue) {
+        return has(name) ? Long.parseLong(options.get(name)) : defaultValue;
+    }
+
+    public double getDouble(String name, double defaultValue) {
+        return has(name) ? Double.parseDouble(options.get(name)) : defaultValue;
+    }
+
+    public boolean getBoolean(String name, boolean defaultValue) {
+        return has(name) ? Boolean.parseBoolean(options.get(name)) : defaultValue;
+    }
+}
@@ -0,0 +1,67 @@
+package ru.practicum.shareit.load;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Отчеты нагрузочных прогонов: CSV со строкой на сценарий, таблица в консоли и сравнение двух прогонов.
+ * Строки сравниваются по режиму и сценарию, поэтому сравнивать имеет смысл прогоны одного набора с одинаковыми
+ * параметрами, например один и тот же набор сценариев на двух версиях приложения.
+ */
+public final class LoadReport {
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private LoadReport() {
+    }
+
+    public static Path write(Path directory, String prefix, List<ScenarioResult> results) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(prefix + "-" + FILE_TIMESTAMP.format(LocalDateTime.now()) + ".csv");
+        List<String> lines = new ArrayList<>();
+        lines.add(ScenarioResult.CSV_HEADER);
+        results.forEach(result -> lines.add(result.toCsv()));
+        Files.write(file, lines);
+        return file;
+    }
+
+    public static void print(List<ScenarioResult> results) {
+        System.out.printf("%-8s %-22s %5s %9s %7s %10s %9s %9s %9s %9s%n",
+                "mode", "scenario", "conc", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        results.forEach(System.out::println);
+    }
+
+    public static void compare(Path before, Path after) throws IOException {
+        Map<String, ScenarioResult> baseline = new HashMap<>();
+        for (ScenarioResult result : read(before)) {
+            baseline.put(result.mode() + result.scenario(), result);
+        }
+        System.out.printf("%-8s %-22s %12s %12s %10s %10s %10s %10s %10s%n",
+                "mode", "scenario", "req/s before", "req/s after", "req/s",
+                "p50 before", "p50 after", "p99 before", "p99 after");
+        for (ScenarioResult result : read(after)) {
+            ScenarioResult old = baseline.get(result.mode() + result.scenario());
+            if (old == null) {
+                continue;
+            }
+            System.out.printf(Locale.ROOT, "%-8s %-22s %12.1f %12.1f %+9.1f%% %10.2f %10.2f %10.2f %10.2f%n",
+                    result.mode(), result.scenario(), old.throughput(), result.throughput(),
+                    (result.throughput() / old.throughput() - 1) * 100,
+                    old.p50(), result.p50(), old.p99(), result.p99());
+        }
+    }
+
+    private static List<ScenarioResult> read(Path file) throws IOException {
+        return Files.readAllLines(file).stream()
+                .skip(1)
+                .map(ScenarioResult::fromCsv)
+                .toList();
+    }
+}
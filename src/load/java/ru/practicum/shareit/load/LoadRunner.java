@@ -0,0 +1,88 @@
+package ru.practicum.shareit.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Закрытая модель нагрузки: concurrency клиентов шлют запросы друг за другом без пауз.
+ * Клиенты работают на виртуальных потоках, поэтому сам генератор не упирается в число потоков.
+ */
+public class LoadRunner {
+    private final int concurrency;
+    private final Duration warmup;
+    private final Duration duration;
+
+    public LoadRunner(int concurrency, Duration warmup, Duration duration) {
+        this.concurrency = concurrency;
+        this.warmup = warmup;
+        this.duration = duration;
+    }
+
+    /**
+     * Запрос возвращает HTTP-статус. Ошибкой считаются статусы вне 2xx и исключения клиента.
+     */
+    @FunctionalInterface
+    public interface Request {
+        int send() throws Exception;
+    }
+
+    public ScenarioResult run(String mode, String scenario, Request request) throws InterruptedException {
+        if (!warmup.isZero()) {
+            measure(request, warmup);
+        }
+        Measurement measurement = measure(request, duration);
+        return ScenarioResult.of(mode, scenario, concurrency, measurement.errors(),
+                measurement.seconds(), measurement.latencies());
+    }
+
+    private Measurement measure(Request request, Duration period) throws InterruptedException {
+        Histogram latencies = new ConcurrentHistogram(3);
+        AtomicLong errors = new AtomicLong();
+        long started = System.nanoTime();
+        long deadline = started + period.toNanos();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(clients.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long requestStarted = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = request.send() / 100 == 2;
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        latencies.recordValue(System.nanoTime() - requestStarted);
+                        if (!ok) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        }
+        return new Measurement(latencies, errors.get(), (System.nanoTime() - started) / 1e9);
+    }
+
+    private record Measurement(Histogram latencies, long errors, double seconds) {
+    }
+}
@@ -0,0 +1,215 @@
+package ru.practicum.shareit.load;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочный прогон на большом наборе данных: GET /items, GET /items/search, GET /bookings,
+ * GET /bookings/owner и POST /bookings.
+ * Набор создает {@link DatasetGenerator}, приложение запускается из собранного jar в отдельной JVM.
+ * Пользователи, вещи и слова для поиска выбираются из случайной выборки строк базы, поэтому запросы повторяют
+ * неравномерность самих данных: активные арендаторы и популярные вещи встречаются чаще.
+ * Новые бронирования ставятся после самого позднего бронирования в базе, поэтому не конфликтуют с набором и
+ * предыдущими прогонами.
+ *
+ * <p>Запуск: {@code mvn -Pload -DskipTests package exec:java -Dload.main=ru.practicum.shareit.load.LoadSuite
+ * -Dexec.args="--label=1.4.0"}.
+ * Результаты пишутся в target/load/suite-&lt;label&gt;-*.csv и сравниваются так же, как результаты
+ * {@link ThreadModeBenchmark}.
+ */
+public class LoadSuite {
+    private static final int SAMPLE_SIZE = 10_000;
+    private static final String[] BOOKING_STATES = {"ALL", "ALL", "ALL", "ALL", "CURRENT", "PAST", "FUTURE",
+            "WAITING"};
+
+    private final LoadOptions options;
+    private final LoadClient client;
+    private final AtomicLong bookingSlot = new AtomicLong();
+    private long[] owners;
+    private long[] bookers;
+    private long[][] bookableItems;
+    private String[] words;
+    private LocalDateTime bookingBase;
+
+    private LoadSuite(LoadOptions options) {
+        this.options = options;
+        this.client = new LoadClient(options.get("base-url", "http://localhost:8080"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = new LoadOptions(args);
+        if (options.has("compare")) {
+            String[] files = options.get("compare", "").split(",");
+            LoadReport.compare(Path.of(files[0]), Path.of(files[1]));
+            return;
+        }
+        new LoadSuite(options).run();
+    }
+
+    private void run() throws Exception {
+        Path out = Path.of(options.get("out", "target/load"));
+        Files.createDirectories(out);
+        String jar = options.get("jar", "target/shareit-0.0.1-SNAPSHOT.jar");
+        String mode = options.getBoolean("virtual", false) ? "virtual" : "platform";
+
+        if (options.getBoolean("generate", true)) {
+            try (Connection connection = DatasetGenerator.connect(options)) {
+                if (!DatasetGenerator.schemaExists(connection)) {
+                    // Схему и секции bookings создает само приложение при старте
+                    ShareItProcess.start(jar, appArgs(), out.resolve("app-schema.log").toFile(), client).close();
+                }
+            }
+            new DatasetGenerator(options).generate();
+        }
+        sample();
+
+        LoadRunner runner = new LoadRunner(options.getInt("concurrency", 50),
+                Duration.parse(options.get("warmup", "PT15S")), Duration.parse(options.get("duration", "PT30S")));
+        List<String> scenarios = Arrays.asList(
+                options.get("scenarios", "items,search,search-window,bookings,owner-bookings,create-booking").split(","));
+        List<ScenarioResult> results = new ArrayList<>();
+        try (ShareItProcess ignored = ShareItProcess.start(jar, appArgs(), out.resolve("app-suite.log").toFile(),
+                client)) {
+            if (scenarios.contains("items")) {
+                results.add(runner.run(mode, "GET /items", () ->
+                        client.get("/items?limit=20", pick(owners))));
+            }
+            if (scenarios.contains("search")) {
+                results.add(runner.run(mode, "GET /items/search", () ->
+                        client.get("/items/search?limit=20&text=" + pick(words), pick(bookers))));
+            }
+            if (scenarios.contains("search-window")) {
+                results.add(runner.run(mode, "GET /items/search?from&to", () ->
+                        client.get("/items/search?limit=20&text=" + pick(words) + searchWindow(), pick(bookers))));
+            }
+            if (scenarios.contains("bookings")) {
+                results.add(runner.run(mode, "GET /bookings", () ->
+                        client.get("/bookings?limit=20&state=" + pick(BOOKING_STATES), pick(bookers))));
+            }
+            if (scenarios.contains("owner-bookings")) {
+                results.add(runner.run(mode, "GET /bookings/owner", () ->
+                        client.get("/bookings/owner?limit=20&state=" + pick(BOOKING_STATES), pick(owners))));
+            }
+            if (scenarios.contains("create-booking")) {
+                results.add(runner.run(mode, "POST /bookings", this::book));
+            }
+        }
+
+        Path file = LoadReport.write(out, "suite-" + options.get("label", "current"), results);
+        System.out.println();
+        LoadReport.print(results);
+        System.out.println("Результаты: " + file);
+    }
+
+    private List<String> appArgs() {
+        List<String> appArgs = new ArrayList<>();
+        appArgs.add("--spring.datasource.url=" + options.get("jdbc-url", "jdbc:postgresql://localhost:5432/shareit"));
+        appArgs.add("--spring.datasource.username=" + options.get("db-user", "dbuser"));
+        appArgs.add("--spring.datasource.password=" + options.get("db-password", "12345"));
+        appArgs.add("--spring.threads.virtual.enabled=" + options.getBoolean("virtual", false));
+        appArgs.addAll(ShareItProcess.QUIET_LOGGING);
+        appArgs.addAll(Arrays.asList(options.get("app-args", "").split(" ")));
+        appArgs.removeIf(String::isBlank);
+        return appArgs;
+    }
+
+    /**
+     * Выборки строк, а не различных значений: владелец с сотней вещей попадает в выборку вещей чаще,
+     * чем владелец с одной, а популярная вещь чаще встречается среди бронирований.
+     */
+    private void sample() throws SQLException {
+        try (Connection connection = DatasetGenerator.connect(options);
+             Statement statement = connection.createStatement()) {
+            owners = longs(statement, "SELECT owner_id FROM items ORDER BY random() LIMIT " + SAMPLE_SIZE);
+            bookers = longs(statement, "SELECT booker_id FROM bookings ORDER BY random() LIMIT " + SAMPLE_SIZE);
+            List<long[]> items = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery("SELECT b.item_id, i.owner_id FROM bookings b " +
+                    "JOIN items i ON i.id = b.item_id WHERE i.is_available ORDER BY random() LIMIT " + SAMPLE_SIZE)) {
+                while (rs.next()) {
+                    items.add(new long[]{rs.getLong(1), rs.getLong(2)});
+                }
+            }
+            bookableItems = items.toArray(long[][]::new);
+            List<String> names = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery("SELECT split_part(name, ' ', 2) FROM items " +
+                    "WHERE is_available ORDER BY random() LIMIT " + SAMPLE_SIZE)) {
+                while (rs.next()) {
+                    names.add(rs.getString(1));
+                }
+            }
+            words = names.toArray(String[]::new);
+            try (ResultSet rs = statement.executeQuery("SELECT MAX(end_date) FROM bookings")) {
+                rs.next();
+                Timestamp latest = rs.getTimestamp(1);
+                LocalDateTime base = LocalDateTime.now().plusDays(1);
+                if (latest != null && latest.toLocalDateTime().isAfter(base)) {
+                    base = latest.toLocalDateTime();
+                }
+                bookingBase = base.plusDays(1).truncatedTo(ChronoUnit.HOURS);
+            }
+        }
+        if (owners.length == 0 || bookers.length == 0 || bookableItems.length == 0 || words.length == 0) {
+            throw new IllegalStateException("В базе нет данных для сценариев, запустите прогон с --generate");
+        }
+    }
+
+    /**
+     * Период поиска свободных вещей: от одного до семи дней в пределах двух месяцев, которые покрывают
+     * будущие бронирования набора.
+     */
+    private static String searchWindow() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDateTime from = LocalDateTime.now().plusDays(random.nextInt(60)).truncatedTo(ChronoUnit.HOURS);
+        return "&from=" + from + "&to=" + from.plusDays(1 + random.nextInt(7));
+    }
+
+    /**
+     * Каждое бронирование получает свой интервал, поэтому пересечений и ответов 409 нет.
+     */
+    private int book() throws IOException, InterruptedException {
+        long slot = bookingSlot.getAndIncrement();
+        long[] item = bookableItems[ThreadLocalRandom.current().nextInt(bookableItems.length)];
+        long booker = pick(bookers);
+        while (booker == item[1]) {
+            booker = pick(bookers);
+        }
+        LocalDateTime start = bookingBase.plusMinutes(slot * 2);
+        return client.post("/bookings", booker, Map.of(
+                "itemId", item[0],
+                "start", start.toString(),
+                "end", start.plusMinutes(1).toString()));
+    }
+
+    private static long[] longs(Statement statement, String sql) throws SQLException {
+        List<Long> values = new ArrayList<>();
+        try (ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                values.add(rs.getLong(1));
+            }
+        }
+        return values.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long pick(long[] values) {
+        return values[ThreadLocalRandom.current().nextInt(values.length)];
+    }
+
+    private static String pick(String[] values) {
+        return values[ThreadLocalRandom.current().nextInt(values.length)];
+    }
+}
@@ -0,0 +1,44 @@
+package ru.practicum.shareit.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Locale;
+
+/**
+ * Итог одного сценария: пропускная способность и перцентили задержки в миллисекундах.
+ */
+public record ScenarioResult(String mode, String scenario, int concurrency, long requests, long errors,
+                             double throughput, double p50, double p90, double p99, double max) {
+    public static final String CSV_HEADER = "mode,scenario,concurrency,requests,errors,throughput,p50,p90,p99,max";
+
+    private static final double NANOS_IN_MILLI = 1_000_000.0;
+
+    public static ScenarioResult of(String mode, String scenario, int concurrency, long errors,
+                                    double seconds, Histogram latencies) {
+        return new ScenarioResult(mode, scenario, concurrency, latencies.getTotalCount(), errors,
+                latencies.getTotalCount() / seconds,
+                latencies.getValueAtPercentile(50) / NANOS_IN_MILLI,
+                latencies.getValueAtPercentile(90) / NANOS_IN_MILLI,
+                latencies.getValueAtPercentile(99) / NANOS_IN_MILLI,
+                latencies.getMaxValue() / NANOS_IN_MILLI);
+    }
+
+    public static ScenarioResult fromCsv(String line) {
+        String[] fields = line.split(",");
+        return new ScenarioResult(fields[0], fields[1], Integer.parseInt(fields[2]),
+                Long.parseLong(fields[3]), Long.parseLong(fields[4]), Double.parseDouble(fields[5]),
+                Double.parseDouble(fields[6]), Double.parseDouble(fields[7]), Double.parseDouble(fields[8]),
+                Double.parseDouble(fields[9]));
+    }
+
+    public String toCsv() {
+        return String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f",
+                mode, scenario, concurrency, requests, errors, throughput, p50, p90, p99, max);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%-8s %-22s %5d %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f",
+                mode, scenario, concurrency, requests, errors, throughput, p50, p90, p99, max);
+    }
+}
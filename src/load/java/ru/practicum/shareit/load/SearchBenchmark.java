@@ -0,0 +1,111 @@
+package ru.practicum.shareit.load;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Задержка GET /items/search в зависимости от размера каталога, по умолчанию 10 000, 100 000 и 1 000 000 вещей.
+ * Для каждого размера база заново заполняется {@link DatasetGenerator}, затем один клиент по очереди ищет:
+ * <ul>
+ *     <li>«name» — частое слово из названий, страница из limit вещей;</li>
+ *     <li>«description» — номер лота, который встречается только в описаниях нескольких вещей;</li>
+ *     <li>«none» — строку, которой нет ни в одной вещи.</li>
+ * </ul>
+ * Один клиент, чтобы перцентили отражали время самого запроса, а не очередь к пулу соединений.
+ *
+ * <p>Запуск: {@code mvn -Pload -DskipTests package exec:java -Dload.main=ru.practicum.shareit.load.SearchBenchmark
+ * -Dexec.args="--jdbc-url=jdbc:postgresql://localhost:5432/shareit_load"}.
+ * Результаты пишутся в target/load/search-&lt;label&gt;-*.csv.
+ */
+public class SearchBenchmark {
+    private final LoadOptions options;
+    private final LoadClient client;
+
+    private SearchBenchmark(LoadOptions options) {
+        this.options = options;
+        this.client = new LoadClient(options.get("base-url", "http://localhost:8080"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = new LoadOptions(args);
+        if (options.has("compare")) {
+            String[] files = options.get("compare", "").split(",");
+            LoadReport.compare(Path.of(files[0]), Path.of(files[1]));
+            return;
+        }
+        new SearchBenchmark(options).run(args);
+    }
+
+    private void run(String[] args) throws Exception {
+        Path out = Path.of(options.get("out", "target/load"));
+        Files.createDirectories(out);
+        String jar = options.get("jar", "target/shareit-0.0.1-SNAPSHOT.jar");
+        String mode = options.getBoolean("virtual", false) ? "virtual" : "platform";
+        int limit = options.getInt("limit", 20);
+        LoadRunner runner = new LoadRunner(1,
+                Duration.parse(options.get("warmup", "PT5S")), Duration.parse(options.get("duration", "PT15S")));
+
+        try (Connection connection = DatasetGenerator.connect(options)) {
+            if (!DatasetGenerator.schemaExists(connection)) {
+                ShareItProcess.start(jar, appArgs(), out.resolve("app-schema.log").toFile(), client).close();
+            }
+        }
+
+        List<ScenarioResult> results = new ArrayList<>();
+        for (String size : options.get("sizes", "10000,100000,1000000").split(",")) {
+            int items = Integer.parseInt(size.trim());
+            new DatasetGenerator(datasetOptions(args, items)).generate();
+            try (ShareItProcess ignored = ShareItProcess.start(jar, appArgs(),
+                    out.resolve("app-search-" + items + ".log").toFile(), client)) {
+                results.add(runner.run(mode, "search name " + items, () ->
+                        client.get("/items/search?limit=" + limit + "&text=" + pick(DatasetGenerator.NOUNS), 1)));
+                results.add(runner.run(mode, "search description " + items, () ->
+                        client.get("/items/search?limit=" + limit + "&text=lot%20"
+                                + (1 + ThreadLocalRandom.current().nextInt(items)), 1)));
+                results.add(runner.run(mode, "search none " + items, () ->
+                        client.get("/items/search?limit=" + limit + "&text=no-such-thing", 1)));
+            }
+        }
+
+        Path file = LoadReport.write(out, "search-" + options.get("label", "current"), results);
+        System.out.println();
+        LoadReport.print(results);
+        System.out.println("Результаты: " + file);
+    }
+
+    /**
+     * Пользователей, бронирований и отзывов пропорционально числу вещей, явно заданные --users и прочие
+     * параметры набора сохраняются.
+     */
+    private static LoadOptions datasetOptions(String[] args, int items) {
+        List<String> datasetArgs = new ArrayList<>();
+        datasetArgs.add("--users=" + Math.max(1000, items / 10));
+        datasetArgs.add("--bookings=" + items);
+        datasetArgs.add("--comments=" + items / 20);
+        datasetArgs.addAll(Arrays.asList(args));
+        datasetArgs.add("--items=" + items);
+        return new LoadOptions(datasetArgs.toArray(String[]::new));
+    }
+
+    private List<String> appArgs() {
+        List<String> appArgs = new ArrayList<>();
+        appArgs.add("--spring.datasource.url=" + options.get("jdbc-url", "jdbc:postgresql://localhost:5432/shareit"));
+        appArgs.add("--spring.datasource.username=" + options.get("db-user", "dbuser"));
+        appArgs.add("--spring.datasource.password=" + options.get("db-password", "12345"));
+        appArgs.add("--spring.threads.virtual.enabled=" + options.getBoolean("virtual", false));
+        appArgs.addAll(ShareItProcess.QUIET_LOGGING);
+        appArgs.addAll(Arrays.asList(options.get("app-args", "").split(" ")));
+        appArgs.removeIf(String::isBlank);
+        return appArgs;
+    }
+
+    private static String pick(String[] values) {
+        return values[ThreadLocalRandom.current().nextInt(values.length)];
+    }
+}
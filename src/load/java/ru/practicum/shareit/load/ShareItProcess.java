@@ -0,0 +1,64 @@
+package ru.practicum.shareit.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Приложение, запущенное из собранного jar в отдельной JVM, чтобы генератор нагрузки не делил с ним heap и CPU-время GC.
+ */
+public class ShareItProcess implements AutoCloseable {
+    /**
+     * Журнал запросов и транзакций приглушается, чтобы замер не упирался в запись логов.
+     */
+    public static final List<String> QUIET_LOGGING = List.of(
+            "--logging.level.ru.practicum=WARN",
+            "--logging.level.org.hibernate.engine.internal=WARN",
+            "--logging.level.org.springframework.orm.jpa=WARN",
+            "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+            "--logging.level.org.springframework.transaction=WARN",
+            "--logging.level.org.springframework.transaction.interceptor=WARN");
+
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(2);
+
+    private final Process process;
+
+    private ShareItProcess(Process process) {
+        this.process = process;
+    }
+
+    public static ShareItProcess start(String jar, List<String> appArgs, File log, LoadClient client)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.add("-jar");
+        command.add(jar);
+        command.addAll(appArgs);
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+        ShareItProcess app = new ShareItProcess(process);
+
+        long deadline = System.nanoTime() + START_TIMEOUT.toNanos();
+        while (!client.isUp()) {
+            if (!process.isAlive() || System.nanoTime() > deadline) {
+                app.close();
+                throw new IllegalStateException("Приложение не запустилось, см. " + log);
+            }
+            Thread.sleep(500);
+        }
+        return app;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+}
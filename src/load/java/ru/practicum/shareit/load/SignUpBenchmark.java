@@ -0,0 +1,135 @@
+package ru.practicum.shareit.load;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Одновременные регистрации пользователей.
+ * В сценарии «POST /users» у каждого запроса свой email, в сценарии «POST /users conflict» клиенты соревнуются
+ * за небольшой набор адресов в разном регистре. Ответ 409 на занятый адрес в этом сценарии считается успешным,
+ * ошибками остаются только ответы 5xx и прочие неожиданные статусы.
+ * После прогона сверяется, что каждый адрес из набора без учета регистра удалось зарегистрировать не больше
+ * одного раза: и по успешным ответам, и по самой таблице users.
+ *
+ * <p>Запуск: {@code mvn -Pload -DskipTests package exec:java -Dload.main=ru.practicum.shareit.load.SignUpBenchmark}.
+ * Результаты пишутся в target/load/sign-ups-&lt;label&gt;-*.csv.
+ */
+public class SignUpBenchmark {
+    private final LoadOptions options;
+    private final LoadClient client;
+    private final String run = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final AtomicLong signUps = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final Map<String, AtomicInteger> conflictPoolCreated = new ConcurrentHashMap<>();
+
+    private SignUpBenchmark(LoadOptions options) {
+        this.options = options;
+        this.client = new LoadClient(options.get("base-url", "http://localhost:8080"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = new LoadOptions(args);
+        if (options.has("compare")) {
+            String[] files = options.get("compare", "").split(",");
+            LoadReport.compare(Path.of(files[0]), Path.of(files[1]));
+            return;
+        }
+        new SignUpBenchmark(options).run();
+    }
+
+    private void run() throws Exception {
+        Path out = Path.of(options.get("out", "target/load"));
+        Files.createDirectories(out);
+        String mode = options.getBoolean("virtual", false) ? "virtual" : "platform";
+        int poolSize = options.getInt("conflict-emails", 50);
+        LoadRunner runner = new LoadRunner(options.getInt("concurrency", 100),
+                Duration.parse(options.get("warmup", "PT10S")), Duration.parse(options.get("duration", "PT30S")));
+
+        List<ScenarioResult> results = new ArrayList<>();
+        File log = out.resolve("app-sign-ups.log").toFile();
+        try (ShareItProcess ignored = ShareItProcess.start(options.get("jar", "target/shareit-0.0.1-SNAPSHOT.jar"),
+                appArgs(), log, client)) {
+            results.add(runner.run(mode, "POST /users", () ->
+                    signUp("signup-" + run + "-" + signUps.incrementAndGet() + "@load.example.com")));
+            results.add(runner.run(mode, "POST /users conflict", () -> {
+                String email = "conflict-" + run + "-" + ThreadLocalRandom.current().nextInt(poolSize)
+                        + "@load.example.com";
+                boolean upperCase = ThreadLocalRandom.current().nextBoolean();
+                int status = signUp(upperCase ? email.toUpperCase(Locale.ROOT) : email);
+                if (status == 409) {
+                    conflicts.incrementAndGet();
+                    return 200;
+                }
+                if (status / 100 == 2) {
+                    conflictPoolCreated.computeIfAbsent(email, key -> new AtomicInteger()).incrementAndGet();
+                }
+                return status;
+            }));
+        }
+
+        Path file = LoadReport.write(out, "sign-ups-" + options.get("label", "current"), results);
+        System.out.println();
+        LoadReport.print(results);
+        System.out.printf("Конфликтов email: %d, зарегистрировано адресов из набора: %d из %d%n",
+                conflicts.get(), conflictPoolCreated.size(), poolSize);
+        List<String> acceptedTwice = conflictPoolCreated.entrySet().stream()
+                .filter(entry -> entry.getValue().get() > 1)
+                .map(Map.Entry::getKey)
+                .toList();
+        List<String> storedTwice = duplicateEmails("conflict-" + run + "-%");
+        if (!acceptedTwice.isEmpty() || !storedTwice.isEmpty()) {
+            throw new IllegalStateException("Один и тот же email зарегистрирован несколько раз: ответы 2xx "
+                    + acceptedTwice + ", строки users " + storedTwice);
+        }
+        System.out.println("Результаты: " + file);
+    }
+
+    /**
+     * Адреса, которые без учета регистра встречаются в users больше одного раза.
+     */
+    private List<String> duplicateEmails(String pattern) throws SQLException {
+        List<String> duplicates = new ArrayList<>();
+        try (Connection connection = DatasetGenerator.connect(options);
+             PreparedStatement statement = connection.prepareStatement("SELECT lower(email) FROM users " +
+                     "WHERE lower(email) LIKE ? GROUP BY 1 HAVING count(*) > 1")) {
+            statement.setString(1, pattern);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    duplicates.add(rs.getString(1));
+                }
+            }
+        }
+        return duplicates;
+    }
+
+    private int signUp(String email) throws Exception {
+        return client.post("/users", null, Map.of("name", "load", "email", email));
+    }
+
+    private List<String> appArgs() {
+        List<String> appArgs = new ArrayList<>();
+        appArgs.add("--spring.datasource.url=" + options.get("jdbc-url", "jdbc:postgresql://localhost:5432/shareit"));
+        appArgs.add("--spring.datasource.username=" + options.get("db-user", "dbuser"));
+        appArgs.add("--spring.datasource.password=" + options.get("db-password", "12345"));
+        appArgs.add("--spring.threads.virtual.enabled=" + options.getBoolean("virtual", false));
+        appArgs.addAll(ShareItProcess.QUIET_LOGGING);
+        appArgs.addAll(Arrays.asList(options.get("app-args", "").split(" ")));
+        appArgs.removeIf(String::isBlank);
+        return appArgs;
+    }
+}
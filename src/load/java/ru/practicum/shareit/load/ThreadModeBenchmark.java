@@ -0,0 +1,166 @@
+package ru.practicum.shareit.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Сравнивает обработку запросов на платформенных и виртуальных потоках.
+ * Для каждого режима запускает собранный jar с spring.threads.virtual.enabled=false/true и гоняет
+ * GET /bookings, GET /items/search и POST /bookings с одинаковым числом одновременных клиентов.
+ * Данные заполняются один раз через API в отдельном запуске приложения, каждый режим стартует в холодной JVM
+ * и прогревается на каждом сценарии перед замером.
+ * Журнал запросов и транзакций приглушен, чтобы сравнивались потоки, а не запись логов.
+ *
+ * <p>Запуск: {@code mvn -Pload -DskipTests package exec:java -Dexec.args="--concurrency=400"}.
+ * Результаты пишутся в target/load/thread-modes-*.csv, сравнение двух прогонов:
+ * {@code mvn -Pload test-compile exec:java -Dexec.args="--compare=old.csv,new.csv"}.
+ */
+public class ThreadModeBenchmark {
+    private static final String[] WORDS = {"drill", "saw", "ladder", "tent", "bike", "guitar", "camera", "kayak"};
+
+    private final LoadOptions options;
+    private final LoadClient client;
+    private final List<Long> userIds = new ArrayList<>();
+    private final List<long[]> items = new ArrayList<>();
+    private final AtomicLong bookingSlot = new AtomicLong();
+    private final LocalDateTime bookingBase = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+
+    private ThreadModeBenchmark(LoadOptions options) {
+        this.options = options;
+        this.client = new LoadClient(option("base-url", "http://localhost:8080"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = new LoadOptions(args);
+        if (options.has("compare")) {
+            String[] files = options.get("compare", "").split(",");
+            LoadReport.compare(Path.of(files[0]), Path.of(files[1]));
+            return;
+        }
+        new ThreadModeBenchmark(options).run();
+    }
+
+    private void run() throws Exception {
+        int concurrency = Integer.parseInt(option("concurrency", "400"));
+        LoadRunner runner = new LoadRunner(concurrency,
+                Duration.parse(option("warmup", "PT15S")), Duration.parse(option("duration", "PT30S")));
+        Path out = Path.of(option("out", "target/load"));
+        Files.createDirectories(out);
+
+        String jar = option("jar", "target/shareit-0.0.1-SNAPSHOT.jar");
+        // Заполнение в отдельном запуске: иначе первый режим получил бы JVM, уже прогретую при заполнении
+        try (ShareItProcess ignored = ShareItProcess.start(jar, appArgs(false), out.resolve("app-seed.log").toFile(),
+                client)) {
+            seed();
+        }
+
+        List<ScenarioResult> results = new ArrayList<>();
+        for (String mode : option("modes", "platform,virtual").split(",")) {
+            File log = out.resolve("app-" + mode + ".log").toFile();
+            try (ShareItProcess ignored = ShareItProcess.start(jar, appArgs("virtual".equals(mode)), log, client)) {
+                results.add(runner.run(mode, "GET /bookings", () ->
+                        client.get("/bookings?limit=20", randomUser())));
+                results.add(runner.run(mode, "GET /items/search", () ->
+                        client.get("/items/search?limit=20&text=" + randomWord(), randomUser())));
+                results.add(runner.run(mode, "POST /bookings", this::book));
+            }
+            results.stream().filter(result -> result.mode().equals(mode)).forEach(System.out::println);
+        }
+
+        Path file = LoadReport.write(out, "thread-modes", results);
+
+        System.out.println();
+        LoadReport.print(results);
+        System.out.println("Результаты: " + file);
+    }
+
+    private List<String> appArgs(boolean virtualThreads) {
+        List<String> appArgs = new ArrayList<>();
+        appArgs.add("--spring.threads.virtual.enabled=" + virtualThreads);
+        appArgs.add("--spring.datasource.hikari.maximum-pool-size=" + option("pool-size", "10"));
+        appArgs.addAll(ShareItProcess.QUIET_LOGGING);
+        appArgs.addAll(Arrays.asList(option("app-args", "").split(" ")));
+        appArgs.removeIf(String::isBlank);
+        return appArgs;
+    }
+
+    /**
+     * Пользователи, по items-per-user вещей у каждого и по bookings-per-user бронирований чужих вещей.
+     * Почта уникальна для каждого запуска, поэтому заполнение работает и на непустой базе.
+     */
+    private void seed() throws Exception {
+        int users = Integer.parseInt(option("users", "200"));
+        int itemsPerUser = Integer.parseInt(option("items-per-user", "5"));
+        int bookingsPerUser = Integer.parseInt(option("bookings-per-user", "10"));
+        long run = System.currentTimeMillis();
+
+        for (int i = 0; i < users; i++) {
+            JsonNode user = client.postForJson("/users", null,
+                    Map.of("name", "load " + i, "email", "load" + run + "-" + i + "@example.com"));
+            long userId = user.get("id").asLong();
+            userIds.add(userId);
+
+            List<Map<String, Object>> batch = new ArrayList<>();
+            for (int j = 0; j < itemsPerUser; j++) {
+                String word = WORDS[(i * itemsPerUser + j) % WORDS.length];
+                batch.add(Map.of("name", word + " " + i + "-" + j,
+                        "description", "Load test " + word + " number " + j,
+                        "available", true));
+            }
+            for (JsonNode item : client.postForJson("/items/batch", userId, batch)) {
+                items.add(new long[]{item.get("id").asLong(), userId});
+            }
+        }
+
+        for (int i = 0; i < users * bookingsPerUser; i++) {
+            int status = book();
+            if (status / 100 != 2) {
+                throw new IllegalStateException("Не удалось создать бронирование: " + status);
+            }
+        }
+        System.out.printf("Заполнено: %d пользователей, %d вещей, %d бронирований%n",
+                users, items.size(), users * bookingsPerUser);
+    }
+
+    /**
+     * Каждое бронирование получает свой интервал, поэтому пересечений и ответов 409 нет.
+     */
+    private int book() throws IOException, InterruptedException {
+        long slot = bookingSlot.getAndIncrement();
+        long[] item = items.get((int) (slot % items.size()));
+        long booker = randomUser();
+        while (booker == item[1]) {
+            booker = randomUser();
+        }
+        LocalDateTime start = bookingBase.plusMinutes(slot * 2);
+        return client.post("/bookings", booker, Map.of(
+                "itemId", item[0],
+                "start", start.toString(),
+                "end", start.plusMinutes(1).toString()));
+    }
+
+    private long randomUser() {
+        return userIds.get(ThreadLocalRandom.current().nextInt(userIds.size()));
+    }
+
+    private String randomWord() {
+        return WORDS[ThreadLocalRandom.current().nextInt(WORDS.length)];
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.get(name, defaultValue);
+    }
+}
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.load;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Выбирает ранг 0..n-1 с вероятностью, обратно пропорциональной (ранг + 1) в степени exponent.
+ * При exponent около 1 несколько процентов пользователей и вещей дают большую часть бронирований.
+ */
+public class ZipfSampler {
+    private final double[] cumulative;
+    private final SplittableRandom random;
+
+    public ZipfSampler(int n, double exponent, SplittableRandom random) {
+        this.cumulative = new double[n];
+        this.random = random;
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cumulative[rank] /= sum;
+        }
+    }
+
+    public int next() {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(rank >= 0 ? rank : -rank - 1, cumulative.length - 1);
+    }
+}
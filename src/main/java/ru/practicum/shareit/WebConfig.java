@@ -0,0 +1,30 @@
+package ru.practicum.shareit;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.practicum.shareit.datasource.ReadYourWritesInterceptor;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectProvider<ReadYourWritesInterceptor> readYourWritesInterceptor;
+
+    /**
+     * Open-in-view для всех запросов, кроме SSE-подписок: EntityManager держит соединение с БД
+     * до конца запроса, а подписка живет десятки минут и быстро исчерпала бы пул соединений.
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        OpenEntityManagerInViewInterceptor interceptor = new OpenEntityManagerInViewInterceptor();
+        interceptor.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(interceptor)
+                .excludePathPatterns("/bookings/owner/stream");
+        readYourWritesInterceptor.ifAvailable(registry::addInterceptor);
+    }
+}
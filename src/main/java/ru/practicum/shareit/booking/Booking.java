@@ -10,7 +10,9 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import lombok.Setter;
@@ -30,7 +32,8 @@ import java.time.LocalDateTime;
 @Table(name = "bookings", schema = "public")
 public class Booking {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_id_seq")
+    @SequenceGenerator(name = "bookings_id_seq", sequenceName = "bookings_id_seq", allocationSize = 50)
     private long id;
     @NotNull
     @Column(name = "start_date")
@@ -53,4 +56,7 @@ public class Booking {
     @ToString.Exclude
     @JoinColumn(name = "requestor_id")
     private User requestor;
+    @Version
+    @Column(name = "version")
+    private long version;
 }
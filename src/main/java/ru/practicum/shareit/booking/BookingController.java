@@ -1,7 +1,13 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -11,9 +17,18 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionParamDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingParamDto;
+import ru.practicum.shareit.etag.ETags;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.streaming.NdjsonWriter;
+import ru.practicum.shareit.streaming.StreamingLimits;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -24,6 +39,8 @@ import java.util.List;
 @RequestMapping(path = "/bookings")
 public class BookingController {
     private final BookingService bookingService;
+    private final ObjectMapper objectMapper;
+    private final StreamingLimits streamingLimits;
 
     @PostMapping
     public BookingDto create(@RequestHeader("X-Sharer-User-Id") long sharerId,
@@ -38,22 +55,61 @@ public class BookingController {
         return bookingService.setApproved(bookingId, sharerId, approved);
     }
 
+    @PatchMapping
+    public List<BookingDecisionDto> approveAll(@RequestHeader("X-Sharer-User-Id") long sharerId,
+                                               @RequestBody BookingDecisionParamDto decision) {
+        return bookingService.setApprovedAll(sharerId, decision);
+    }
+
+    @GetMapping(path = "/owner/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamOwnerEvents(@RequestHeader("X-Sharer-User-Id") long sharerId) {
+        // Клиент SSE принимает только text/event-stream, поэтому ошибки отдаются статусом без JSON-тела
+        try {
+            return bookingService.subscribeOwner(sharerId)
+                    .map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header(HttpHeaders.RETRY_AFTER, "30")
+                            .build());
+        } catch (NotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @GetMapping("/{bookingId}")
-    public BookingDto read(@RequestHeader("X-Sharer-User-Id") long sharerId, @PathVariable long bookingId) {
-        return bookingService.read(sharerId, bookingId);
+    public ResponseEntity<BookingDto> read(@RequestHeader("X-Sharer-User-Id") long sharerId,
+                                           @PathVariable long bookingId,
+                                           WebRequest request, HttpServletResponse response) {
+        response.setHeader(HttpHeaders.VARY, "X-Sharer-User-Id");
+        if (ETags.checkNotModified(request, () -> bookingService.readETag(sharerId, bookingId))) {
+            return null;
+        }
+        return bookingService.read(sharerId, bookingId).toResponseEntity();
     }
 
     @GetMapping
-    public List<BookingDto> readAllByBookerId(@RequestHeader("X-Sharer-User-Id") long sharerId,
-                                              @RequestParam(defaultValue = "ALL") BookingsState state) {
-        System.out.println(state);
-        return bookingService.readAllByBookerId(sharerId, state);
+    public ResponseEntity<List<BookingDto>> readAllByBookerId(@RequestHeader("X-Sharer-User-Id") long sharerId,
+                                                              @RequestParam(defaultValue = "ALL") BookingsState state,
+                                                              @RequestParam(required = false) Integer limit,
+                                                              @RequestParam(required = false) String after) {
+        return bookingService.readAllByBookerId(sharerId, state, limit, after).toResponseEntity();
     }
 
     @GetMapping("/owner")
-    public List<BookingDto> readAllByOwnerId(@RequestHeader("X-Sharer-User-Id") long sharerId,
-                                             @RequestParam(defaultValue = "ALL") BookingsState state) {
-        return bookingService.readAllByOwnerId(sharerId, state);
+    public ResponseEntity<List<BookingDto>> readAllByOwnerId(@RequestHeader("X-Sharer-User-Id") long sharerId,
+                                                             @RequestParam(defaultValue = "ALL") BookingsState state,
+                                                             @RequestParam(required = false) Integer limit,
+                                                             @RequestParam(required = false) String after) {
+        return bookingService.readAllByOwnerId(sharerId, state, limit, after).toResponseEntity();
+    }
+
+    @GetMapping(path = "/owner", produces = NdjsonWriter.MEDIA_TYPE)
+    public void streamAllByOwnerId(@RequestHeader("X-Sharer-User-Id") long sharerId,
+                                   @RequestParam(defaultValue = "ALL") BookingsState state,
+                                   HttpServletResponse response) throws IOException {
+        response.setContentType(NdjsonWriter.MEDIA_TYPE);
+        try (NdjsonWriter writer = streamingLimits.newWriter(objectMapper, response.getOutputStream())) {
+            bookingService.streamAllByOwnerId(sharerId, state, writer);
+        }
     }
 
 }
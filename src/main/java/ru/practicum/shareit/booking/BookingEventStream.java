@@ -0,0 +1,123 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Подписки владельцев на события бронирований их вещей.
+ * SseEmitter работает поверх асинхронного сервлета и не занимает поток, пока соединение простаивает.
+ * Рассылка идет на виртуальных потоках, чтобы медленный клиент не задерживал поток запроса.
+ */
+@Slf4j
+@Component
+public class BookingEventStream {
+    private final Map<Long, Set<SseEmitter>> emittersByOwner = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final long timeoutMillis;
+    private final int maxSubscribers;
+
+    public BookingEventStream(MeterRegistry meterRegistry,
+                              @Value("${shareit.booking.events.timeout:PT30M}") Duration timeout,
+                              @Value("${shareit.booking.events.max-subscribers:10000}") int maxSubscribers) {
+        this.timeoutMillis = timeout.toMillis();
+        this.maxSubscribers = maxSubscribers;
+        Gauge.builder("shareit.bookings.events.subscribers", subscribers, AtomicInteger::get)
+                .description("Открытые SSE-подписки владельцев на события бронирований")
+                .register(meterRegistry);
+    }
+
+    public Optional<SseEmitter> subscribe(long ownerId) {
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            log.warn("Достигнут предел SSE-подписок: {}", maxSubscribers);
+            return Optional.empty();
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Set<SseEmitter> emitters = emittersByOwner.computeIfAbsent(ownerId, id -> ConcurrentHashMap.newKeySet());
+        emitters.add(emitter);
+        emitter.onCompletion(() -> remove(ownerId, emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> remove(ownerId, emitter));
+        // Первое событие отправляет заголовки ответа сразу, не дожидаясь изменений бронирований
+        send(ownerId, emitter, SseEmitter.event().comment("connected"));
+        log.debug("Владелец с id = {} подписался на события бронирований", ownerId);
+        return Optional.of(emitter);
+    }
+
+    public void publishAfterCommit(long ownerId, BookingEventDto event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(ownerId, event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(ownerId, event);
+            }
+        });
+    }
+
+    @Scheduled(fixedRateString = "${shareit.booking.events.heartbeat:PT30S}")
+    public void sendHeartbeat() {
+        emittersByOwner.forEach((ownerId, emitters) ->
+                emitters.forEach(emitter -> senders.execute(() ->
+                        send(ownerId, emitter, SseEmitter.event().comment("ping")))));
+    }
+
+    @PreDestroy
+    public void close() {
+        emittersByOwner.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+        senders.shutdown();
+    }
+
+    private void publish(long ownerId, BookingEventDto event) {
+        Set<SseEmitter> emitters = emittersByOwner.get(ownerId);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            senders.execute(() -> send(ownerId, emitter, SseEmitter.event()
+                    .id(String.valueOf(event.getBooking().getId()))
+                    .name(event.getType().name())
+                    .data(event)));
+        }
+    }
+
+    private void send(long ownerId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Соединение владельца с id = {} закрыто: {}", ownerId, e.getMessage());
+            remove(ownerId, emitter);
+        }
+    }
+
+    private void remove(long ownerId, SseEmitter emitter) {
+        emittersByOwner.computeIfPresent(ownerId, (id, emitters) -> {
+            if (emitters.remove(emitter)) {
+                subscribers.decrementAndGet();
+            }
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
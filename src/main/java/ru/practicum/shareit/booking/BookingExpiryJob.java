@@ -0,0 +1,66 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Переводит в EXPIRED бронирования, которые так и не подтвердили до даты начала.
+ * Каждый пакет обрабатывается в своей транзакции, строки берутся через FOR UPDATE SKIP LOCKED,
+ * поэтому задачу можно запускать на нескольких узлах одновременно.
+ */
+@Slf4j
+@Component
+public class BookingExpiryJob {
+    private final BookingService bookingService;
+    private final BookingRepository bookings;
+    private final int batchSize;
+    private final Counter expiredBookings;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public BookingExpiryJob(BookingService bookingService,
+                            BookingRepository bookings,
+                            MeterRegistry meterRegistry,
+                            @Value("${shareit.booking.expiry.batch-size:1000}") int batchSize) {
+        this.bookingService = bookingService;
+        this.bookings = bookings;
+        this.batchSize = batchSize;
+        this.expiredBookings = Counter.builder("shareit.bookings.expired")
+                .description("Бронирования, переведенные из WAITING в EXPIRED")
+                .register(meterRegistry);
+        Gauge.builder("shareit.bookings.expiry.lag", lagSeconds, AtomicLong::get)
+                .description("Возраст самого старого просроченного WAITING-бронирования перед запуском")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.expiry.delay:PT1M}",
+            initialDelayString = "${shareit.booking.expiry.initial-delay:PT30S}")
+    public void expireStaleBookings() {
+        LocalDateTime now = LocalDateTime.now();
+        lagSeconds.set(bookings.findOldestStaleWaitingStart(Timestamp.valueOf(now))
+                .map(start -> Duration.between(start.toLocalDateTime(), now).toSeconds())
+                .orElse(0L));
+
+        long total = 0;
+        int expired;
+        do {
+            expired = bookingService.expireStaleBookings(batchSize);
+            expiredBookings.increment(expired);
+            total += expired;
+        } while (expired == batchSize);
+
+        if (total > 0) {
+            log.info("Истекло {} неподтвержденных бронирований, задержка {} с", total, lagSeconds.get());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package ru.practicum.shareit.booking;
+
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Локальный индекс подтвержденных бронирований по вещам.
+ * Хранит только APPROVED-бронирования, которые больше не меняют статус, поэтому
+ * найденное пересечение всегда настоящее. Отсутствие пересечения ничего не гарантирует:
+ * окончательную проверку выполняет БД (ограничение ex_bookings_item_period или триггер на bookings).
+ * Индекс загружается при старте, дополняется подтверждениями на этом узле и перечитывается по расписанию,
+ * поэтому подтверждения на других узлах попадают в него с задержкой — это только ускорение отказа.
+ * Ожидающие бронирования в индекс не попадают: их могут отклонить, и пересечение с ними было бы ложным.
+ */
+@Slf4j
+@Component
+public class BookingIntervalIndex {
+    private final JdbcTemplate jdbc;
+    private volatile Map<Long, ConcurrentNavigableMap<LocalDateTime, LocalDateTime>> approvedByItem =
+            new ConcurrentHashMap<>();
+    private List<Interval> addedDuringReload;
+
+    public BookingIntervalIndex(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    public boolean overlaps(long itemId, LocalDateTime start, LocalDateTime end) {
+        Map<Long, ConcurrentNavigableMap<LocalDateTime, LocalDateTime>> current = approvedByItem;
+        ConcurrentNavigableMap<LocalDateTime, LocalDateTime> intervals = current.get(itemId);
+        if (intervals == null) {
+            return false;
+        }
+        evictFinished(current, itemId, intervals);
+
+        Map.Entry<LocalDateTime, LocalDateTime> candidate = intervals.lowerEntry(end);
+        return candidate != null && candidate.getValue().isAfter(start);
+    }
+
+    public void addAfterCommit(long itemId, LocalDateTime start, LocalDateTime end) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(new Interval(itemId, start, end));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(new Interval(itemId, start, end));
+            }
+        });
+    }
+
+    /**
+     * Заменяет индекс незавершенными подтвержденными бронированиями из БД. Подтверждения этого узла,
+     * пришедшие во время чтения, накладываются на новый индекс, чтобы не потерять их.
+     */
+    @Scheduled(fixedDelayString = "${shareit.booking.intervals.reload-delay:PT1M}",
+            initialDelayString = "${shareit.booking.intervals.reload-delay:PT1M}")
+    public void reload() {
+        synchronized (this) {
+            addedDuringReload = new ArrayList<>();
+        }
+        Map<Long, ConcurrentNavigableMap<LocalDateTime, LocalDateTime>> loaded = new ConcurrentHashMap<>();
+        jdbc.query("SELECT item_id, start_date, end_date FROM bookings WHERE status = 'APPROVED' AND end_date > ?",
+                rs -> {
+                    put(loaded, new Interval(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime(),
+                            rs.getTimestamp(3).toLocalDateTime()));
+                }, Timestamp.valueOf(LocalDateTime.now()));
+        synchronized (this) {
+            addedDuringReload.forEach(interval -> put(loaded, interval));
+            addedDuringReload = null;
+            approvedByItem = loaded;
+        }
+        log.debug("Загружен индекс подтвержденных бронирований: {} вещей", loaded.size());
+    }
+
+    private synchronized void add(Interval interval) {
+        put(approvedByItem, interval);
+        if (addedDuringReload != null) {
+            addedDuringReload.add(interval);
+        }
+    }
+
+    private static void put(Map<Long, ConcurrentNavigableMap<LocalDateTime, LocalDateTime>> index,
+                            Interval interval) {
+        index.computeIfAbsent(interval.getItemId(), id -> new ConcurrentSkipListMap<>())
+                .put(interval.getStart(), interval.getEnd());
+    }
+
+    private static void evictFinished(Map<Long, ConcurrentNavigableMap<LocalDateTime, LocalDateTime>> index,
+                                      long itemId, ConcurrentNavigableMap<LocalDateTime, LocalDateTime> intervals) {
+        LocalDateTime now = LocalDateTime.now();
+        Map.Entry<LocalDateTime, LocalDateTime> first = intervals.firstEntry();
+        while (first != null && !first.getValue().isAfter(now)) {
+            intervals.remove(first.getKey(), first.getValue());
+            first = intervals.firstEntry();
+        }
+        if (intervals.isEmpty()) {
+            index.remove(itemId, intervals);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Interval {
+        long itemId;
+        LocalDateTime start;
+        LocalDateTime end;
+    }
+}
@@ -0,0 +1,72 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Держит секции bookings на months-ahead месяцев вперед и переносит в архив месяцы,
+ * закончившиеся раньше, чем hot-months месяцев назад.
+ * Первый запуск выполняется при старте, чтобы секции существовали до первых запросов.
+ * Изменения схемы выполняются под advisory-блокировкой, поэтому задачу можно запускать на нескольких узлах.
+ */
+@Slf4j
+@Component
+public class BookingPartitionJob {
+    private final BookingPartitionManager partitions;
+    private final int monthsAhead;
+    private final int hotMonths;
+    private final Counter createdPartitions;
+    private final Counter archivedPartitions;
+    private boolean partitioned;
+
+    public BookingPartitionJob(BookingPartitionManager partitions,
+                               MeterRegistry meterRegistry,
+                               @Value("${shareit.booking.partitions.months-ahead:3}") int monthsAhead,
+                               @Value("${shareit.booking.partitions.hot-months:3}") int hotMonths) {
+        this.partitions = partitions;
+        this.monthsAhead = monthsAhead;
+        this.hotMonths = hotMonths;
+        this.createdPartitions = Counter.builder("shareit.bookings.partitions.created")
+                .description("Созданные секции таблицы bookings")
+                .register(meterRegistry);
+        this.archivedPartitions = Counter.builder("shareit.bookings.partitions.archived")
+                .description("Помесячные секции bookings, перенесенные в архив")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        partitioned = partitions.isPartitioned();
+        if (!partitioned) {
+            log.warn("Таблица bookings не секционирована, обслуживание секций отключено");
+            return;
+        }
+        maintain();
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.partitions.delay:PT6H}",
+            initialDelayString = "${shareit.booking.partitions.delay:PT6H}")
+    public void maintain() {
+        if (!partitioned) {
+            return;
+        }
+        LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+        LocalDate hotStart = currentMonth.minusMonths(hotMonths);
+
+        int created = partitions.createPartitions(hotStart, currentMonth.plusMonths(monthsAhead + 1));
+        createdPartitions.increment(created);
+        int archived = partitions.archivePartitions(hotStart);
+        archivedPartitions.increment(archived);
+
+        if (created > 0 || archived > 0) {
+            log.info("Секции bookings: создано {}, перенесено в архив {}", created, archived);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Обслуживает секционирование bookings по end_date.
+ * Горячие секции помесячные (bookings_2026_10), все, что старше, лежит в bookings_archive,
+ * которая сама секционирована: завершившийся месяц переносится туда без копирования строк.
+ * Бронирования за пределами созданных секций попадают в bookings_default и переносятся
+ * в свою секцию при ее создании.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingPartitionManager {
+    private static final String DEFAULT_PARTITION = "bookings_default";
+    private static final String ARCHIVE_PARTITION = "bookings_archive";
+    private static final String ARCHIVE_BASE_PARTITION = "bookings_archive_base";
+    private static final DateTimeFormatter MONTH_PARTITION = DateTimeFormatter.ofPattern("'bookings_'yyyy_MM");
+    private static final DateTimeFormatter BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String MOVE_FROM_DEFAULT = "WITH moved AS (DELETE FROM " + DEFAULT_PARTITION + " ";
+    private static final String MOVED_TO_BOOKINGS = " RETURNING *) INSERT INTO bookings SELECT * FROM moved";
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+
+    private final JdbcTemplate jdbc;
+
+    public boolean isPartitioned() {
+        return Boolean.TRUE.equals(jdbc.queryForObject(
+                "SELECT relkind = 'p' FROM pg_class WHERE oid = 'bookings'::regclass", Boolean.class));
+    }
+
+    /**
+     * Создает недостающие секции: по умолчанию, архив до hotStart и помесячные до горизонта.
+     *
+     * @return количество созданных секций
+     */
+    @Transactional
+    public int createPartitions(LocalDate hotStart, LocalDate horizon) {
+        lockPartitions();
+        Map<String, LocalDate> upperBounds = readUpperBounds();
+        int created = 0;
+
+        if (!upperBounds.containsKey(DEFAULT_PARTITION)) {
+            jdbc.execute("CREATE TABLE " + DEFAULT_PARTITION + " PARTITION OF bookings DEFAULT");
+            log.info("Создана секция {}", DEFAULT_PARTITION);
+            created++;
+        }
+
+        LocalDate archiveUpper = upperBounds.get(ARCHIVE_PARTITION);
+        if (archiveUpper == null) {
+            archiveUpper = hotStart;
+            moveFromDefault(null, archiveUpper,
+                    "CREATE TABLE " + ARCHIVE_PARTITION + " PARTITION OF bookings " +
+                            "FOR VALUES FROM (MINVALUE) TO (" + bound(archiveUpper) + ") " +
+                            "PARTITION BY RANGE (end_date)",
+                    "CREATE TABLE " + ARCHIVE_BASE_PARTITION + " PARTITION OF " + ARCHIVE_PARTITION + " " +
+                            "FOR VALUES FROM (MINVALUE) TO (" + bound(archiveUpper) + ")",
+                    "ALTER TABLE " + ARCHIVE_BASE_PARTITION + " ADD CONSTRAINT " + ARCHIVE_BASE_PARTITION +
+                            "_bounds CHECK (end_date < " + bound(archiveUpper) + ")");
+            log.info("Создана секция {} до {}", ARCHIVE_PARTITION, archiveUpper);
+            created++;
+        }
+
+        LocalDate from = archiveUpper;
+        for (Map.Entry<String, LocalDate> partition : upperBounds.entrySet()) {
+            if (isMonthPartition(partition.getKey()) && partition.getValue().isAfter(from)) {
+                from = partition.getValue();
+            }
+        }
+
+        while (from.isBefore(horizon)) {
+            LocalDate to = from.plusMonths(1);
+            String name = MONTH_PARTITION.format(from);
+            moveFromDefault(from, to,
+                    "CREATE TABLE " + name + " PARTITION OF bookings " +
+                            "FOR VALUES FROM (" + bound(from) + ") TO (" + bound(to) + ")");
+            log.info("Создана секция {}", name);
+            created++;
+            from = to;
+        }
+        return created;
+    }
+
+    /**
+     * Переносит в bookings_archive помесячные секции, которые целиком раньше hotStart.
+     * Каждая секция получает CHECK по своим границам, поэтому повторное подключение
+     * архива не перепроверяет уже лежащие в нем строки.
+     *
+     * @return количество перенесенных секций
+     */
+    @Transactional
+    public int archivePartitions(LocalDate hotStart) {
+        lockPartitions();
+        Map<String, LocalDate> upperBounds = readUpperBounds();
+        LocalDate archiveUpper = upperBounds.get(ARCHIVE_PARTITION);
+        if (archiveUpper == null) {
+            return 0;
+        }
+
+        int archived = 0;
+        while (archiveUpper.isBefore(hotStart)) {
+            String name = MONTH_PARTITION.format(archiveUpper);
+            LocalDate to = archiveUpper.plusMonths(1);
+            if (!to.equals(upperBounds.get(name))) {
+                log.warn("Секция {} не найдена, перенос в архив остановлен на {}", name, archiveUpper);
+                break;
+            }
+            jdbc.execute("ALTER TABLE " + name + " ADD CONSTRAINT " + name + "_bounds " +
+                    "CHECK (end_date >= " + bound(archiveUpper) + " AND end_date < " + bound(to) + ") NOT VALID");
+            jdbc.execute("ALTER TABLE " + name + " VALIDATE CONSTRAINT " + name + "_bounds");
+            jdbc.execute("ALTER TABLE bookings DETACH PARTITION " + name);
+            jdbc.execute("ALTER TABLE bookings DETACH PARTITION " + ARCHIVE_PARTITION);
+            jdbc.execute("ALTER TABLE " + ARCHIVE_PARTITION + " ATTACH PARTITION " + name + " " +
+                    "FOR VALUES FROM (" + bound(archiveUpper) + ") TO (" + bound(to) + ")");
+            jdbc.execute("ALTER TABLE bookings ATTACH PARTITION " + ARCHIVE_PARTITION + " " +
+                    "FOR VALUES FROM (MINVALUE) TO (" + bound(to) + ")");
+            log.info("Секция {} перенесена в {}", name, ARCHIVE_PARTITION);
+            archived++;
+            archiveUpper = to;
+        }
+        return archived;
+    }
+
+    private void moveFromDefault(LocalDate from, LocalDate to, String... createStatements) {
+        jdbc.execute("ALTER TABLE bookings DETACH PARTITION " + DEFAULT_PARTITION);
+        for (String statement : createStatements) {
+            jdbc.execute(statement);
+        }
+        int moved = from == null
+                ? jdbc.update(MOVE_FROM_DEFAULT + "WHERE end_date < ?" + MOVED_TO_BOOKINGS,
+                Timestamp.valueOf(to.atStartOfDay()))
+                : jdbc.update(MOVE_FROM_DEFAULT + "WHERE end_date >= ? AND end_date < ?" + MOVED_TO_BOOKINGS,
+                Timestamp.valueOf(from.atStartOfDay()),
+                Timestamp.valueOf(to.atStartOfDay()));
+        jdbc.execute("ALTER TABLE bookings ATTACH PARTITION " + DEFAULT_PARTITION + " DEFAULT");
+        if (moved > 0) {
+            log.info("Из {} перенесено бронирований: {}", DEFAULT_PARTITION, moved);
+        }
+    }
+
+    private Map<String, LocalDate> readUpperBounds() {
+        Map<String, LocalDate> upperBounds = new HashMap<>();
+        jdbc.query("SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) " +
+                "FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = 'bookings'::regclass", rs -> {
+                    Matcher matcher = UPPER_BOUND.matcher(rs.getString(2));
+                    upperBounds.put(rs.getString(1),
+                            matcher.find() ? LocalDateTime.parse(matcher.group(1), BOUND).toLocalDate() : null);
+                });
+        return upperBounds;
+    }
+
+    private void lockPartitions() {
+        jdbc.execute("SELECT pg_advisory_xact_lock(hashtext('bookings_partitions'))");
+    }
+
+    private boolean isMonthPartition(String name) {
+        return !name.equals(DEFAULT_PARTITION) && !name.equals(ARCHIVE_PARTITION);
+    }
+
+    private String bound(LocalDate date) {
+        return "'" + BOUND.format(date.atStartOfDay()) + "'";
+    }
+}
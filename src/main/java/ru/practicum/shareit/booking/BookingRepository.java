@@ -1,77 +1,240 @@
 package ru.practicum.shareit.booking;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.practicum.shareit.booking.dto.BookingOwnerView;
+import ru.practicum.shareit.booking.dto.BookingVersionView;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.dto.ItemBookingSummary;
 
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    @Transactional
-    @Modifying
-    @Query("update Booking set status=?2 where id=?1")
-    void updateBookingStatus(Long id, BookingStatus bookingStatus);
-
-    List<Booking> findByBookerId(Long bookerId, Sort sort);
-
-    List<Booking> findByBookerIdAndEndIsBefore(Long bookerId, LocalDateTime end, Sort sort);
-
-    List<Booking> findByBookerIdAndStartIsAfter(Long bookerId, LocalDateTime start, Sort sort);
-
-    List<Booking> findByBookerIdAndStartIsBeforeAndEndIsAfter(Long bookerId,
-                                                              LocalDateTime start,
-                                                              LocalDateTime end,
-                                                              Sort sort);
-
-    List<Booking> findAllByBookerIdAndStatus(Long bookerId, BookingStatus status, Sort sort);
-
-    @Query(value = "SELECT b.* FROM bookings b " +
-            "WHERE item_id IN(SELECT id FROM items " +
-            "WHERE owner_id = :ownerId) " +
-            "ORDER BY b.end_date", nativeQuery = true)
-    List<Booking> findAllOwnerItemsBookings(Long ownerId);
+    String ITEM_BOOKING_SUMMARY_SELECT = "SELECT b.item_id AS itemId, " +
+            "MAX(b.end_date) FILTER (WHERE b.end_date <= :nowTimeStamp) AS lastBooking, " +
+            "MIN(b.start_date) FILTER (WHERE b.start_date >= :nowTimeStamp) AS nextBooking, " +
+            "COUNT(*) AS totalBookings, " +
+            "MAX(b.booker_id) FILTER (WHERE b.status = 'APPROVED' " +
+            "AND b.start_date <= :nowTimeStamp AND b.end_date > :nowTimeStamp) AS currentBookerId, " +
+            "LEAST(MIN(b.start_date) FILTER (WHERE b.start_date >= :nowTimeStamp), " +
+            "MIN(b.end_date) FILTER (WHERE b.end_date > :nowTimeStamp)) AS validUntil " +
+            "FROM bookings b ";
+
+    String STREAM_FETCH_SIZE = "500";
+
+    String OWNER_BOOKING_VIEW_SELECT = "SELECT b.id AS id, b.start_date AS start, b.end_date AS end, " +
+            "b.status AS status, b.item_id AS itemId, i.name AS itemName, b.booker_id AS bookerId " +
+            "FROM bookings b " +
+            "JOIN items i ON i.id = b.item_id " +
+            "WHERE i.owner_id = :ownerId ";
+
+    // Название вещи входит в ответ, поэтому ETag бронирования учитывает и версию вещи
+    @Query(value = "SELECT b.version AS version, i.version AS itemVersion FROM bookings b " +
+            "JOIN items i ON i.id = b.item_id " +
+            "WHERE b.id = :bookingId", nativeQuery = true)
+    Optional<BookingVersionView> findBookingVersion(long bookingId);
+
+    @Query(value = "UPDATE bookings b SET status = :status, version = b.version + 1 " +
+            "FROM items i " +
+            "WHERE b.id = :bookingId " +
+            "AND i.id = b.item_id " +
+            "AND i.owner_id = :ownerId " +
+            "AND b.status = 'WAITING' " +
+            "RETURNING b.id AS id, b.start_date AS start, b.end_date AS end, b.status AS status, " +
+            "b.item_id AS itemId, i.name AS itemName, b.booker_id AS bookerId", nativeQuery = true)
+    Optional<BookingView> decideWaitingBooking(Long bookingId, Long ownerId, String status);
+
+    @Query(value = "UPDATE bookings b SET status = :status, version = b.version + 1 " +
+            "FROM items i " +
+            "WHERE b.id IN (:bookingIds) " +
+            "AND i.id = b.item_id " +
+            "AND i.owner_id = :ownerId " +
+            "AND b.status = 'WAITING' " +
+            "RETURNING b.id AS id, b.start_date AS start, b.end_date AS end, b.status AS status, " +
+            "b.item_id AS itemId, i.name AS itemName, b.booker_id AS bookerId", nativeQuery = true)
+    List<BookingView> decideWaitingBookings(Collection<Long> bookingIds, Long ownerId, String status);
 
-    @Query(value = "SELECT b.* FROM bookings b " +
-            "WHERE item_id IN(SELECT id FROM items " +
-            "WHERE owner_id = :ownerId) " +
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "bookings"))
+    @Query(value = "UPDATE bookings SET status = 'EXPIRED', version = version + 1 " +
+            "WHERE id IN (SELECT id FROM bookings " +
+            "WHERE status = 'WAITING' AND start_date < :nowTimeStamp " +
+            "ORDER BY start_date " +
+            "LIMIT :batchSize " +
+            "FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int expireWaitingBookings(Timestamp nowTimeStamp, int batchSize);
+
+    @Query(value = "SELECT MIN(start_date) FROM bookings " +
+            "WHERE status = 'WAITING' AND start_date < :nowTimeStamp", nativeQuery = true)
+    Optional<Timestamp> findOldestStaleWaitingStart(Timestamp nowTimeStamp);
+
+    @Query(value = "SELECT b.id AS id, i.owner_id AS ownerId, b.status AS status " +
+            "FROM bookings b " +
+            "JOIN items i ON i.id = b.item_id " +
+            "WHERE b.id IN (:bookingIds)", nativeQuery = true)
+    List<BookingOwnerView> findOwners(Collection<Long> bookingIds);
+
+    @EntityGraph(attributePaths = "item")
+    Window<Booking> findByBookerId(Long bookerId, ScrollPosition position, Limit limit, Sort sort);
+
+    @EntityGraph(attributePaths = "item")
+    Window<Booking> findByBookerIdAndEndIsBefore(Long bookerId,
+                                                 LocalDateTime end,
+                                                 ScrollPosition position,
+                                                 Limit limit,
+                                                 Sort sort);
+
+    @EntityGraph(attributePaths = "item")
+    Window<Booking> findByBookerIdAndStartIsAfterAndEndIsAfter(Long bookerId,
+                                                               LocalDateTime start,
+                                                               LocalDateTime end,
+                                                               ScrollPosition position,
+                                                               Limit limit,
+                                                               Sort sort);
+
+    @EntityGraph(attributePaths = "item")
+    Window<Booking> findByBookerIdAndStartIsBeforeAndEndIsAfter(Long bookerId,
+                                                                LocalDateTime start,
+                                                                LocalDateTime end,
+                                                                ScrollPosition position,
+                                                                Limit limit,
+                                                                Sort sort);
+
+    @EntityGraph(attributePaths = "item")
+    Window<Booking> findByBookerIdAndStatus(Long bookerId,
+                                            BookingStatus status,
+                                            ScrollPosition position,
+                                            Limit limit,
+                                            Sort sort);
+
+    @EntityGraph(attributePaths = "item")
+    Window<Booking> findByItemOwnerId(Long ownerId, ScrollPosition position, Limit limit, Sort sort);
+
+    @EntityGraph(attributePaths = "item")
+    Window<Booking> findByItemOwnerIdAndEndIsBefore(Long ownerId,
+                                                    LocalDateTime end,
+                                                    ScrollPosition position,
+                                                    Limit limit,
+                                                    Sort sort);
+
+    @EntityGraph(attributePaths = "item")
+    Window<Booking> findByItemOwnerIdAndStartIsAfterAndEndIsAfter(Long ownerId,
+                                                                  LocalDateTime start,
+                                                                  LocalDateTime end,
+                                                                  ScrollPosition position,
+                                                                  Limit limit,
+                                                                  Sort sort);
+
+    @EntityGraph(attributePaths = "item")
+    Window<Booking> findByItemOwnerIdAndStartIsLessThanEqualAndEndIsGreaterThanEqual(Long ownerId,
+                                                                                   LocalDateTime start,
+                                                                                   LocalDateTime end,
+                                                                                   ScrollPosition position,
+                                                                                   Limit limit,
+                                                                                   Sort sort);
+
+    @EntityGraph(attributePaths = "item")
+    Window<Booking> findByItemOwnerIdAndStatus(Long ownerId,
+                                               BookingStatus status,
+                                               ScrollPosition position,
+                                               Limit limit,
+                                               Sort sort);
+
+    // Потоковые выборки для NDJSON: проекции вместо сущностей не копятся в контексте персистентности,
+    // а fetch size заставляет драйвер читать строки курсором порциями
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(value = OWNER_BOOKING_VIEW_SELECT +
+            "ORDER BY b.end_date, b.id", nativeQuery = true)
+    Stream<BookingView> streamByItemOwnerId(Long ownerId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(value = OWNER_BOOKING_VIEW_SELECT +
             "AND b.end_date < :nowTimeStamp " +
-            "ORDER BY b.end_date", nativeQuery = true)
-    List<Booking> findAllOwnerItemsBookingsInPast(Long ownerId, Timestamp nowTimeStamp);
+            "ORDER BY b.end_date, b.id", nativeQuery = true)
+    Stream<BookingView> streamPastByItemOwnerId(Long ownerId, Timestamp nowTimeStamp);
 
-    @Query(value = "SELECT b.* FROM bookings b " +
-            "WHERE item_id IN(SELECT id FROM items " +
-            "WHERE owner_id = :ownerId) " +
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(value = OWNER_BOOKING_VIEW_SELECT +
             "AND b.start_date > :nowTimeStamp " +
-            "ORDER BY b.end_date", nativeQuery = true)
-    List<Booking> findAllOwnerItemsBookingsInFuture(Long ownerId, Timestamp nowTimeStamp);
+            "AND b.end_date > :nowTimeStamp " +
+            "ORDER BY b.end_date, b.id", nativeQuery = true)
+    Stream<BookingView> streamFutureByItemOwnerId(Long ownerId, Timestamp nowTimeStamp);
 
-    @Query(value = "SELECT b.* FROM bookings b " +
-            "WHERE item_id IN(SELECT id FROM items " +
-            "WHERE owner_id = :ownerId) AND b.start_date <= :nowTimeStamp " +
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(value = OWNER_BOOKING_VIEW_SELECT +
+            "AND b.start_date <= :nowTimeStamp " +
             "AND b.end_date >= :nowTimeStamp " +
-            "ORDER BY b.end_date", nativeQuery = true)
-    List<Booking> findAllCurrentOwnerItemsBooking(Long ownerId, Timestamp nowTimeStamp);
-
-    @Query(value = "SELECT b.* FROM bookings b " +
-            "WHERE item_id IN(SELECT id FROM items " +
-            "WHERE owner_id = :ownerId)" +
-            "AND status = :bookingStatus " +
-            "ORDER BY b.end_date", nativeQuery = true)
-    List<Booking> findAllOwnerItemsBookingWithStatus(Long ownerId, String bookingStatus);
-
-    @Query(value = "SELECT MAX(b.end_date) FROM bookings b " +
-            "WHERE b.item_id = :itemId " +
-            "AND b.end_date <= :nowTimeStamp", nativeQuery = true)
-    LocalDateTime findLastBookingEndDate(Long itemId, Timestamp nowTimeStamp);
-
-    @Query(value = "SELECT MIN(b.start_date) FROM bookings b " +
-            "WHERE b.item_id = :itemId " +
-            "AND b.start_date >= :nowTimeStamp", nativeQuery = true)
-    LocalDateTime findNextBookingStartDate(Long itemId, Timestamp nowTimeStamp);
+            "ORDER BY b.end_date, b.id", nativeQuery = true)
+    Stream<BookingView> streamCurrentByItemOwnerId(Long ownerId, Timestamp nowTimeStamp);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(value = OWNER_BOOKING_VIEW_SELECT +
+            "AND b.status = :status " +
+            "ORDER BY b.end_date, b.id", nativeQuery = true)
+    Stream<BookingView> streamByItemOwnerIdAndStatus(Long ownerId, String status);
+
+    @Query(value = "SELECT item_id AS itemId, last_booking AS lastBooking, next_booking AS nextBooking, " +
+            "total_bookings AS totalBookings, current_booker_id AS currentBookerId, valid_until AS validUntil " +
+            "FROM item_booking_summaries " +
+            "WHERE item_id IN (:itemIds)", nativeQuery = true)
+    List<ItemBookingSummary> findItemBookingSummaries(Collection<Long> itemIds);
+
+    @Query(value = ITEM_BOOKING_SUMMARY_SELECT +
+            "WHERE b.item_id IN (:itemIds) " +
+            "GROUP BY b.item_id", nativeQuery = true)
+    List<ItemBookingSummary> computeItemBookingSummaries(Collection<Long> itemIds, Timestamp nowTimeStamp);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "item_booking_summaries"))
+    @Query(value = "INSERT INTO item_booking_summaries AS s (item_id, next_booking, total_bookings, valid_until) " +
+            "VALUES (:itemId, :startTimeStamp, 1, :startTimeStamp) " +
+            "ON CONFLICT (item_id) DO UPDATE SET " +
+            "total_bookings = s.total_bookings + 1, " +
+            "next_booking = LEAST(s.next_booking, EXCLUDED.next_booking), " +
+            "valid_until = LEAST(s.valid_until, EXCLUDED.valid_until)", nativeQuery = true)
+    void addFutureBookingToSummary(Long itemId, Timestamp startTimeStamp);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "item_booking_summaries"))
+    @Query(value = "UPDATE item_booking_summaries SET current_booker_id = :bookerId, " +
+            "valid_until = LEAST(valid_until, :endTimeStamp) " +
+            "WHERE item_id = :itemId", nativeQuery = true)
+    void setSummaryCurrentBooker(Long itemId, Long bookerId, Timestamp endTimeStamp);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "item_booking_summaries"))
+    @Query(value = "WITH stale AS (SELECT item_id FROM item_booking_summaries " +
+            "WHERE valid_until <= :nowTimeStamp " +
+            "ORDER BY valid_until " +
+            "LIMIT :batchSize " +
+            "FOR UPDATE SKIP LOCKED) " +
+            "INSERT INTO item_booking_summaries (item_id, last_booking, next_booking, total_bookings, " +
+            "current_booker_id, valid_until) " +
+            "SELECT itemId, lastBooking, nextBooking, totalBookings, currentBookerId, validUntil FROM (" +
+            ITEM_BOOKING_SUMMARY_SELECT +
+            "WHERE b.item_id IN (SELECT item_id FROM stale) " +
+            "GROUP BY b.item_id) summary " +
+            "ON CONFLICT (item_id) DO UPDATE SET " +
+            "last_booking = EXCLUDED.last_booking, " +
+            "next_booking = EXCLUDED.next_booking, " +
+            "total_bookings = EXCLUDED.total_bookings, " +
+            "current_booker_id = EXCLUDED.current_booker_id, " +
+            "valid_until = EXCLUDED.valid_until", nativeQuery = true)
+    int rollForwardItemBookingSummaries(Timestamp nowTimeStamp, int batchSize);
 
     @Query(value = "SELECT EXISTS(SELECT FROM bookings WHERE booker_id = :userId " +
             "AND item_id = :itemId " +
@@ -2,27 +2,54 @@ package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionParamDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
 import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingOwnerView;
 import ru.practicum.shareit.booking.dto.BookingParamDto;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.etag.ETags;
+import ru.practicum.shareit.etag.Versioned;
+import ru.practicum.shareit.exception.BookingAlreadyDecidedException;
 import ru.practicum.shareit.exception.BookingApproveByWrongUserException;
+import ru.practicum.shareit.exception.BookingOverlapException;
 import ru.practicum.shareit.exception.BookingUnavailableItemException;
 import ru.practicum.shareit.exception.InvalidDataException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.WrongUserException;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.Cursors;
+import ru.practicum.shareit.streaming.NdjsonWriter;
+import ru.practicum.shareit.streaming.StreamingLimits;
 import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserExistenceIndex;
 import ru.practicum.shareit.user.UserRepository;
 
+import java.io.IOException;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -31,13 +58,22 @@ public class BookingService {
     private final BookingRepository bookings;
     private final ItemRepository items;
     private final UserRepository users;
+    private final UserExistenceIndex userExistence;
+    private final BookingIntervalIndex approvedIntervals;
+    private final BookingEventStream bookingEvents;
+    private final StreamingLimits streamingLimits;
 
+    private static final String EXCLUSION_VIOLATION = "23P01";
+    private static final int MAX_DECISION_BATCH_SIZE = 1000;
+    private static final Sort NEWEST_FIRST = Sort.by("end").descending().and(Sort.by("id").descending());
+    private static final Sort OLDEST_FIRST = Sort.by("end").and(Sort.by("id"));
 
     @Transactional
     public BookingDto save(Long sharerId, BookingParamDto bookingParamDto) {
 
         log.info("Начало создания бронирования {} пользователем c id {}", bookingParamDto, sharerId);
-        Optional<User> optionalBooker = users.findById(sharerId);
+        // Несуществующий пользователь отсекается локальным набором, существующий читается из кэша второго уровня
+        Optional<User> optionalBooker = userExistence.exists(sharerId) ? users.findById(sharerId) : Optional.empty();
         if (optionalBooker.isEmpty()) {
             log.error("Пользователь с id = {} не найден", sharerId);
             throw new NotFoundException("Пользователь с id = " + sharerId + " не найден");
@@ -63,6 +99,11 @@ public class BookingService {
             throw new InvalidDataException(". Дата конца бронирования не может быть в прошлом.");
         }
 
+        if (bookingParamDto.getEnd().isBefore(bookingParamDto.getStart())) {
+            log.error("Дата конца бронирования раньше даты начала {}", bookingParamDto);
+            throw new InvalidDataException(". Дата конца бронирования не может быть раньше даты начала.");
+        }
+
         Booking booking = BookingMapper.mapToBooking(bookingParamDto);
 
         Item item = getItem(bookingParamDto.getItemId());
@@ -72,6 +113,12 @@ public class BookingService {
             throw new BookingUnavailableItemException("Вещь с id = " + item.getId() + " недоступна для бронирования");
         }
 
+        if (approvedIntervals.overlaps(item.getId(), booking.getStart(), booking.getEnd())) {
+            log.error("Вещь с id = {} уже забронирована на период {} - {}",
+                    item.getId(), booking.getStart(), booking.getEnd());
+            throw new BookingOverlapException("Вещь с id = " + item.getId() + " уже забронирована на этот период");
+        }
+
         booking.setItem(item);
 
         User booker = optionalBooker.get();
@@ -79,59 +126,149 @@ public class BookingService {
         booking.setBooker(booker);
 
         booking.setStatus(BookingStatus.WAITING);
-        log.error("Создано бронирование {}", booking);
-        return BookingMapper.mapToBookingDto(bookings.save(booking));
+
+        // Пересечения отклоняет БД: ограничение ex_bookings_item_period на обычной таблице
+        // или триггер с той же ошибкой на секционированной
+        Booking savedBooking;
+        try {
+            savedBooking = bookings.saveAndFlush(booking);
+        } catch (DataIntegrityViolationException e) {
+            if (e.getMostSpecificCause() instanceof SQLException sqlException
+                    && EXCLUSION_VIOLATION.equals(sqlException.getSQLState())) {
+                log.error("Вещь с id = {} уже забронирована на период {} - {}",
+                        item.getId(), booking.getStart(), booking.getEnd());
+                throw new BookingOverlapException("Вещь с id = " + item.getId()
+                        + " уже забронирована на этот период");
+            }
+            throw e;
+        }
+        bookings.addFutureBookingToSummary(item.getId(), Timestamp.valueOf(savedBooking.getStart()));
+        log.info("Создано бронирование {}", savedBooking);
+        BookingDto bookingDto = BookingMapper.mapToBookingDto(savedBooking);
+        publishEvent(item.getOwner().getId(), BookingEventType.CREATED, bookingDto);
+        return bookingDto;
     }
 
     @Transactional
     public BookingDto setApproved(Long bookingId, Long sharerId, Boolean approved) {
         log.info("Начало установки статуса approved = {} бронированию с id = {} пользователем с id = {}",
                 approved, bookingId, sharerId);
-        if (!users.existsById(sharerId)) {
-            log.error("Пользователь с id = {} не найден", sharerId);
-            throw new WrongUserException("Пользователь с id = " + sharerId + " не найден");
-        }
 
-        Optional<Booking> optionalBooking = bookings.findById(bookingId);
+        BookingStatus bookingStatus = BookingStatus.APPROVED;
+        if (!approved) {
+            bookingStatus = BookingStatus.REJECTED;
+        }
 
+        Optional<BookingView> optionalBooking = bookings.decideWaitingBooking(bookingId,
+                sharerId,
+                bookingStatus.name());
         if (optionalBooking.isEmpty()) {
-            log.error("Бронирование с id = {} не найдено", bookingId);
-            throw new NotFoundException("Бронирование с id = " + bookingId + " не найдено");
+            throw explainRejectedDecision(bookingId, sharerId);
         }
 
-        Booking booking = optionalBooking.get();
+        BookingView booking = optionalBooking.get();
+        if (booking.getStatus() == BookingStatus.APPROVED) {
+            approvedIntervals.addAfterCommit(booking.getItemId(), booking.getStart(), booking.getEnd());
+            updateSummaryCurrentBooker(booking);
+        }
+        log.info("Установлен статус {} бронированию с id = {}", booking.getStatus(), bookingId);
+        BookingDto bookingDto = BookingMapper.mapToBookingDto(booking);
+        publishEvent(sharerId, decidedEventType(booking.getStatus()), bookingDto);
+        return bookingDto;
+    }
+
+    @Transactional
+    public int expireStaleBookings(int batchSize) {
+        int expired = bookings.expireWaitingBookings(Timestamp.valueOf(LocalDateTime.now()), batchSize);
+        log.debug("Истекло бронирований в пакете: {}", expired);
+        return expired;
+    }
+
+    @Transactional
+    public int rollForwardItemBookingSummaries(int batchSize) {
+        int refreshed = bookings.rollForwardItemBookingSummaries(Timestamp.valueOf(LocalDateTime.now()), batchSize);
+        log.debug("Пересчитано сводок бронирований вещей в пакете: {}", refreshed);
+        return refreshed;
+    }
+
+    @Transactional
+    public List<BookingDecisionDto> setApprovedAll(Long sharerId, BookingDecisionParamDto decision) {
+        log.info("Начало установки статуса approved = {} бронированиям {} пользователем с id = {}",
+                decision.getApproved(), decision.getBookingIds(), sharerId);
+        if (decision.getApproved() == null) {
+            log.error("Не задано решение по бронированиям {}", decision);
+            throw new InvalidDataException("Не задано значение поля approved");
+        }
+
+        if (decision.getBookingIds() == null
+                || decision.getBookingIds().isEmpty()
+                || decision.getBookingIds().contains(null)) {
+            log.error("Не заданы id бронирований {}", decision);
+            throw new InvalidDataException("Не заданы id бронирований");
+        }
+
+        Set<Long> bookingIds = new LinkedHashSet<>(decision.getBookingIds());
+        if (bookingIds.size() > MAX_DECISION_BATCH_SIZE) {
+            log.error("Превышен размер пакета решений по бронированиям {}", bookingIds.size());
+            throw new InvalidDataException("За один запрос можно обработать не более "
+                    + MAX_DECISION_BATCH_SIZE + " бронирований");
+        }
+
+        if (!userExistence.exists(sharerId)) {
+            log.error("Пользователь с id = {} не найден", sharerId);
+            throw new WrongUserException("Пользователь с id = " + sharerId + " не найден");
+        }
 
         BookingStatus bookingStatus = BookingStatus.APPROVED;
-        if (!approved) {
+        BookingDecisionOutcome decidedOutcome = BookingDecisionOutcome.APPROVED;
+        if (!decision.getApproved()) {
             bookingStatus = BookingStatus.REJECTED;
+            decidedOutcome = BookingDecisionOutcome.REJECTED;
         }
 
-        bookings.updateBookingStatus(bookingId, bookingStatus);
+        Map<Long, BookingDecisionOutcome> outcomes = new HashMap<>();
+        for (BookingView booking : bookings.decideWaitingBookings(bookingIds, sharerId, bookingStatus.name())) {
+            outcomes.put(booking.getId(), decidedOutcome);
+            if (bookingStatus == BookingStatus.APPROVED) {
+                approvedIntervals.addAfterCommit(booking.getItemId(), booking.getStart(), booking.getEnd());
+                updateSummaryCurrentBooker(booking);
+            }
+            publishEvent(sharerId, decidedEventType(bookingStatus), BookingMapper.mapToBookingDto(booking));
+        }
 
-        Optional<Item> optionalItem = items.findById(booking.getItem().getId());
-        if (optionalItem.isEmpty()) {
-            log.error("Вещь с id = {} не найдена", booking.getItem().getId());
-            throw new NotFoundException("Вещь с id = " + booking.getItem().getId() + " не найдена");
+        List<Long> undecidedIds = bookingIds.stream()
+                .filter(id -> !outcomes.containsKey(id))
+                .toList();
+        if (!undecidedIds.isEmpty()) {
+            for (BookingOwnerView booking : bookings.findOwners(undecidedIds)) {
+                outcomes.put(booking.getId(), Objects.equals(booking.getOwnerId(), sharerId)
+                        ? BookingDecisionOutcome.ALREADY_DECIDED
+                        : BookingDecisionOutcome.NOT_OWNER);
+            }
         }
 
-        Item item = optionalItem.get();
+        List<BookingDecisionDto> result = bookingIds.stream()
+                .map(id -> BookingDecisionDto.builder()
+                        .bookingId(id)
+                        .outcome(outcomes.getOrDefault(id, BookingDecisionOutcome.NOT_FOUND))
+                        .build())
+                .toList();
+        log.info("Установлены статусы бронированиям {}", result);
+        return result;
+    }
 
-        if (!Objects.equals(item.getOwner().getId(), sharerId)) {
-            log.error("Попытка подтвердить бронирование вещи с id = {} не владельцем(id = {})",
-                    booking.getItem().getId(),
-                    sharerId);
-            throw new BookingApproveByWrongUserException("Попытка подтвердить бронирование не владельцем");
+    public Optional<SseEmitter> subscribeOwner(Long sharerId) {
+        if (!userExistence.exists(sharerId)) {
+            log.error("Пользователь с id = {} не найден", sharerId);
+            throw new NotFoundException("Пользователь с id = " + sharerId + " не найден");
         }
-        booking.setItem(item);
-
-        booking.setStatus(BookingStatus.APPROVED);
-        log.info("Установлен статус бронированию {}", booking);
-        return BookingMapper.mapToBookingDto(bookings.save(booking));
+        return bookingEvents.subscribe(sharerId);
     }
 
-    public BookingDto read(Long sharerId, Long bookingId) {
+    @Transactional(readOnly = true)
+    public Versioned<BookingDto> read(Long sharerId, Long bookingId) {
         log.info("Чтение данных бронирования с id = {} пользователем с id = {}", bookingId, sharerId);
-        if (!users.existsById(sharerId)) {
+        if (!userExistence.exists(sharerId)) {
             log.error("Пользователь с id = {} не найден", sharerId);
             throw new NotFoundException("Пользователь с id = " + sharerId + " не найден");
         }
@@ -142,82 +279,178 @@ public class BookingService {
             throw new NotFoundException("Бронирование с id = " + bookingId + " не найдено");
         }
 
-        log.info("Прочитано бронирование {}", optionalBooking.get());
-        return BookingMapper.mapToBookingDto(optionalBooking.get());
+        Booking booking = optionalBooking.get();
+        log.info("Прочитано бронирование {}", booking);
+        return new Versioned<>(BookingMapper.mapToBookingDto(booking),
+                ETags.of(List.of(booking.getVersion(), booking.getItem().getVersion())));
     }
 
-    public List<BookingDto> readAllByBookerId(Long sharerId, BookingsState state) {
+    /**
+     * Пусто, если пользователь не найден: тогда ошибку возвращает обычное чтение.
+     */
+    @Transactional(readOnly = true)
+    public Optional<String> readETag(Long sharerId, Long bookingId) {
+        if (!userExistence.exists(sharerId)) {
+            return Optional.empty();
+        }
+        return bookings.findBookingVersion(bookingId)
+                .map(version -> ETags.of(List.of(version.getVersion(), version.getItemVersion())));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<BookingDto> readAllByBookerId(Long sharerId, BookingsState state, Integer limit, String after) {
         log.info("Чтение всех бронирований букера с id = {}", sharerId);
-        if (!users.existsById(sharerId)) {
+        if (!userExistence.exists(sharerId)) {
             log.error("Пользователь с id = {} не найден", sharerId);
             throw new WrongUserException("Пользователь с id = " + sharerId + " не найден");
         }
-
-        return switch (state) {
-            case ALL -> bookings.findByBookerId(sharerId, Sort.by("end").descending()).stream()
-                    .map(BookingMapper::mapToBookingDto)
-                    .toList();
-            case PAST -> bookings.findByBookerIdAndEndIsBefore(sharerId,
-                            LocalDateTime.now(),
-                            Sort.by("end").descending()).stream()
-                    .map(BookingMapper::mapToBookingDto)
-                    .toList();
-            case FUTURE -> bookings.findByBookerIdAndStartIsAfter(sharerId,
-                            LocalDateTime.now(),
-                            Sort.by("end")).stream()
-                    .map(BookingMapper::mapToBookingDto)
-                    .toList();
+        ScrollPosition position = Cursors.decode(after, "end", "id");
+        Limit pageLimit = Cursors.toLimit(limit);
+        LocalDateTime now = LocalDateTime.now();
+
+        Window<Booking> window = switch (state) {
+            case ALL -> bookings.findByBookerId(sharerId, position, pageLimit, NEWEST_FIRST);
+            case PAST -> bookings.findByBookerIdAndEndIsBefore(sharerId, now, position, pageLimit, NEWEST_FIRST);
+            case FUTURE -> bookings.findByBookerIdAndStartIsAfterAndEndIsAfter(sharerId,
+                    now,
+                    now,
+                    position,
+                    pageLimit,
+                    OLDEST_FIRST);
             case CURRENT -> bookings.findByBookerIdAndStartIsBeforeAndEndIsAfter(sharerId,
-                            LocalDateTime.now(),
-                            LocalDateTime.now(),
-                            Sort.by("end")).stream()
-                    .map(BookingMapper::mapToBookingDto)
-                    .toList();
-            case WAITING -> bookings.findAllByBookerIdAndStatus(sharerId,
-                            BookingStatus.WAITING,
-                            Sort.by("end").descending()).stream()
-                    .map(BookingMapper::mapToBookingDto)
-                    .toList();
-            case REJECTED -> bookings.findAllByBookerIdAndStatus(sharerId,
-                            BookingStatus.REJECTED,
-                            Sort.by("end").descending()).stream()
-                    .map(BookingMapper::mapToBookingDto)
-                    .toList();
+                    now,
+                    now,
+                    position,
+                    pageLimit,
+                    OLDEST_FIRST);
+            case WAITING -> bookings.findByBookerIdAndStatus(sharerId,
+                    BookingStatus.WAITING,
+                    position,
+                    pageLimit,
+                    NEWEST_FIRST);
+            case REJECTED -> bookings.findByBookerIdAndStatus(sharerId,
+                    BookingStatus.REJECTED,
+                    position,
+                    pageLimit,
+                    NEWEST_FIRST);
         };
 
+        return Cursors.toPage(window, BookingMapper::mapToBookingDto);
     }
 
-    public List<BookingDto> readAllByOwnerId(Long sharerId, BookingsState state) {
+    @Transactional(readOnly = true)
+    public CursorPage<BookingDto> readAllByOwnerId(Long sharerId, BookingsState state, Integer limit, String after) {
         log.info("Чтение всех бронирований пользователя с id = {}", sharerId);
-        if (!users.existsById(sharerId)) {
+        if (!userExistence.exists(sharerId)) {
             log.error("Пользователь с id = {} не найден", sharerId);
             throw new WrongUserException("Пользователь с id = " + sharerId + " не найден");
         }
+        ScrollPosition position = Cursors.decode(after, "end", "id");
+        Limit pageLimit = Cursors.toLimit(limit);
+        LocalDateTime now = LocalDateTime.now();
+
+        Window<Booking> window = switch (state) {
+            case ALL -> bookings.findByItemOwnerId(sharerId, position, pageLimit, OLDEST_FIRST);
+            case PAST -> bookings.findByItemOwnerIdAndEndIsBefore(sharerId, now, position, pageLimit, OLDEST_FIRST);
+            case FUTURE -> bookings.findByItemOwnerIdAndStartIsAfterAndEndIsAfter(sharerId,
+                    now,
+                    now,
+                    position,
+                    pageLimit,
+                    OLDEST_FIRST);
+            case CURRENT -> bookings.findByItemOwnerIdAndStartIsLessThanEqualAndEndIsGreaterThanEqual(sharerId,
+                    now,
+                    now,
+                    position,
+                    pageLimit,
+                    OLDEST_FIRST);
+            case WAITING -> bookings.findByItemOwnerIdAndStatus(sharerId,
+                    BookingStatus.WAITING,
+                    position,
+                    pageLimit,
+                    OLDEST_FIRST);
+            case REJECTED -> bookings.findByItemOwnerIdAndStatus(sharerId,
+                    BookingStatus.REJECTED,
+                    position,
+                    pageLimit,
+                    OLDEST_FIRST);
+        };
+
+        return Cursors.toPage(window, BookingMapper::mapToBookingDto);
+    }
+
+    /**
+     * Все бронирования владельца в порядке readAllByOwnerId, записанные по одному прямо в ответ.
+     * Строки читаются курсором внутри транзакции, поэтому ни сущности, ни DTO не собираются в список.
+     */
+    @Transactional(readOnly = true)
+    public void streamAllByOwnerId(Long sharerId, BookingsState state, NdjsonWriter writer) throws IOException {
+        log.info("Потоковое чтение всех бронирований пользователя с id = {}", sharerId);
+        if (!userExistence.exists(sharerId)) {
+            log.error("Пользователь с id = {} не найден", sharerId);
+            throw new WrongUserException("Пользователь с id = " + sharerId + " не найден");
+        }
+        streamingLimits.limitTransaction();
         Timestamp now = Timestamp.valueOf(LocalDateTime.now());
 
-        return switch (state) {
-            case ALL -> bookings.findAllOwnerItemsBookings(sharerId).stream()
-                    .map(BookingMapper::mapToBookingDto)
-                    .toList();
-            case PAST -> bookings.findAllOwnerItemsBookingsInPast(sharerId, now).stream()
-                    .map(BookingMapper::mapToBookingDto)
-                    .toList();
-            case FUTURE -> bookings.findAllOwnerItemsBookingsInFuture(sharerId, now).stream()
-                    .map(BookingMapper::mapToBookingDto)
-                    .toList();
-            case CURRENT -> bookings.findAllCurrentOwnerItemsBooking(sharerId, now).stream()
-                    .map(BookingMapper::mapToBookingDto)
-                    .toList();
-            case WAITING -> bookings.findAllOwnerItemsBookingWithStatus(sharerId, BookingStatus.WAITING.toString())
-                    .stream()
-                    .map(BookingMapper::mapToBookingDto)
-                    .toList();
-            case REJECTED -> bookings.findAllOwnerItemsBookingWithStatus(sharerId, BookingStatus.REJECTED.toString())
-                    .stream()
-                    .map(BookingMapper::mapToBookingDto)
-                    .toList();
-        };
+        try (Stream<BookingView> ownerBookings = switch (state) {
+            case ALL -> bookings.streamByItemOwnerId(sharerId);
+            case PAST -> bookings.streamPastByItemOwnerId(sharerId, now);
+            case FUTURE -> bookings.streamFutureByItemOwnerId(sharerId, now);
+            case CURRENT -> bookings.streamCurrentByItemOwnerId(sharerId, now);
+            case WAITING -> bookings.streamByItemOwnerIdAndStatus(sharerId, BookingStatus.WAITING.name());
+            case REJECTED -> bookings.streamByItemOwnerIdAndStatus(sharerId, BookingStatus.REJECTED.name());
+        }) {
+            for (Iterator<BookingView> it = ownerBookings.iterator(); it.hasNext(); ) {
+                writer.write(BookingMapper.mapToBookingDto(it.next()));
+            }
+        }
+        log.info("Записано {} бронирований пользователя с id = {}", writer.getCount(), sharerId);
+    }
+
+    private void updateSummaryCurrentBooker(BookingView booking) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!booking.getStart().isAfter(now) && booking.getEnd().isAfter(now)) {
+            bookings.setSummaryCurrentBooker(booking.getItemId(),
+                    booking.getBookerId(),
+                    Timestamp.valueOf(booking.getEnd()));
+        }
+    }
+
+    private void publishEvent(long ownerId, BookingEventType type, BookingDto booking) {
+        bookingEvents.publishAfterCommit(ownerId, BookingEventDto.builder()
+                .type(type)
+                .booking(booking)
+                .build());
+    }
+
+    private BookingEventType decidedEventType(BookingStatus status) {
+        return status == BookingStatus.APPROVED ? BookingEventType.APPROVED : BookingEventType.REJECTED;
+    }
+
+    private RuntimeException explainRejectedDecision(Long bookingId, Long sharerId) {
+        if (!userExistence.exists(sharerId)) {
+            log.error("Пользователь с id = {} не найден", sharerId);
+            return new WrongUserException("Пользователь с id = " + sharerId + " не найден");
+        }
+
+        Optional<Booking> optionalBooking = bookings.findById(bookingId);
+        if (optionalBooking.isEmpty()) {
+            log.error("Бронирование с id = {} не найдено", bookingId);
+            return new NotFoundException("Бронирование с id = " + bookingId + " не найдено");
+        }
+
+        Booking booking = optionalBooking.get();
+        if (!Objects.equals(booking.getItem().getOwner().getId(), sharerId)) {
+            log.error("Попытка подтвердить бронирование вещи с id = {} не владельцем(id = {})",
+                    booking.getItem().getId(),
+                    sharerId);
+            return new BookingApproveByWrongUserException("Попытка подтвердить бронирование не владельцем");
+        }
 
+        log.error("Бронирование с id = {} уже имеет статус {}", bookingId, booking.getStatus());
+        return new BookingAlreadyDecidedException("Бронирование с id = " + bookingId
+                + " уже имеет статус " + booking.getStatus());
     }
 
     private Item getItem(Long id) {
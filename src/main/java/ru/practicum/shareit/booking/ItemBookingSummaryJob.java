@@ -0,0 +1,47 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Пересчитывает сводки бронирований вещей, у которых с течением времени сменились
+ * последнее, следующее или текущее бронирование (valid_until в прошлом).
+ * Строки берутся через FOR UPDATE SKIP LOCKED, поэтому задачу можно запускать на нескольких узлах.
+ */
+@Slf4j
+@Component
+public class ItemBookingSummaryJob {
+    private final BookingService bookingService;
+    private final int batchSize;
+    private final Counter refreshedSummaries;
+
+    public ItemBookingSummaryJob(BookingService bookingService,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${shareit.item.booking-summary.batch-size:1000}") int batchSize) {
+        this.bookingService = bookingService;
+        this.batchSize = batchSize;
+        this.refreshedSummaries = Counter.builder("shareit.items.booking-summaries.refreshed")
+                .description("Сводки бронирований вещей, пересчитанные по истечении valid_until")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.item.booking-summary.delay:PT1M}",
+            initialDelayString = "${shareit.item.booking-summary.initial-delay:PT30S}")
+    public void rollForward() {
+        long total = 0;
+        int refreshed;
+        do {
+            refreshed = bookingService.rollForwardItemBookingSummaries(batchSize);
+            refreshedSummaries.increment(refreshed);
+            total += refreshed;
+        } while (refreshed == batchSize);
+
+        if (total > 0) {
+            log.info("Пересчитано {} сводок бронирований вещей", total);
+        }
+    }
+}
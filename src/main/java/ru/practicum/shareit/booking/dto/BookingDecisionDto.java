@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import ru.practicum.shareit.booking.BookingDecisionOutcome;
+
+@Builder
+@Data
+public class BookingDecisionDto {
+    private Long bookingId;
+    private BookingDecisionOutcome outcome;
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@Setter
+@ToString
+public class BookingDecisionParamDto {
+    private List<Long> bookingIds;
+    private Boolean approved;
+}
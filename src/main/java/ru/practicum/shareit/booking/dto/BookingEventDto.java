@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import ru.practicum.shareit.booking.BookingEventType;
+
+@Builder
+@Data
+public class BookingEventDto {
+    private BookingEventType type;
+    private BookingDto booking;
+}
@@ -26,6 +26,27 @@ public class BookingMapper {
         return bookingDto;
     }
 
+    public static BookingDto mapToBookingDto(BookingView booking) {
+        BookingDto bookingDto = new BookingDto();
+        bookingDto.setId(booking.getId());
+        bookingDto.setStart(booking.getStart());
+        bookingDto.setEnd(booking.getEnd());
+
+        ItemIdAndNameDto itemIdAndNameDto = ItemIdAndNameDto.builder()
+                .id(booking.getItemId())
+                .name(booking.getItemName())
+                .build();
+        bookingDto.setItem(itemIdAndNameDto);
+
+        UserIdOnlyDto booker = UserIdOnlyDto.builder()
+                .id(booking.getBookerId())
+                .build();
+        bookingDto.setBooker(booker);
+
+        bookingDto.setStatus(booking.getStatus());
+        return bookingDto;
+    }
+
     public static Booking mapToBooking(BookingParamDto bookingParamDto) {
         Booking booking = new Booking();
         booking.setId(bookingParamDto.getId());
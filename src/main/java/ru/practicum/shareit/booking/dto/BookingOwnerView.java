@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.BookingStatus;
+
+public interface BookingOwnerView {
+    Long getId();
+
+    Long getOwnerId();
+
+    BookingStatus getStatus();
+}
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.BookingStatus;
+
+import java.time.LocalDateTime;
+
+public interface BookingView {
+    Long getId();
+
+    LocalDateTime getStart();
+
+    LocalDateTime getEnd();
+
+    BookingStatus getStatus();
+
+    Long getItemId();
+
+    String getItemName();
+
+    Long getBookerId();
+}
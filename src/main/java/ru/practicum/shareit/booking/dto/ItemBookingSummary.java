@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.dto;
+
+import java.time.LocalDateTime;
+
+public interface ItemBookingSummary {
+    Long getItemId();
+
+    LocalDateTime getLastBooking();
+
+    LocalDateTime getNextBooking();
+
+    Long getTotalBookings();
+
+    Long getCurrentBookerId();
+
+    LocalDateTime getValidUntil();
+}
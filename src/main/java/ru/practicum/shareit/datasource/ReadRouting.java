@@ -0,0 +1,94 @@
+package ru.practicum.shareit.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Решает, куда пойдет чтение: на реплику или на основную БД.
+ * Основная БД выбирается, если отставание реплики больше допустимого или неизвестно,
+ * если текущий запрос изменяет данные, и в течение sticky-window после записи того же пользователя.
+ */
+public class ReadRouting {
+    private final Duration maxLag;
+    private final Cache<Long, Boolean> recentWriters;
+    private final ThreadLocal<Boolean> primaryRequired = new ThreadLocal<>();
+    private final ThreadLocal<ReadTarget> pinnedTarget = new ThreadLocal<>();
+    private final Map<ReadTarget, Counter> routedReads;
+    private volatile Duration replicaLag;
+
+    public ReadRouting(Duration maxLag, Duration stickyWindow, MeterRegistry meterRegistry) {
+        this.maxLag = maxLag;
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(stickyWindow)
+                .build();
+        this.routedReads = Map.of(
+                ReadTarget.PRIMARY, readsCounter(ReadTarget.PRIMARY, meterRegistry),
+                ReadTarget.REPLICA, readsCounter(ReadTarget.REPLICA, meterRegistry));
+        Gauge.builder("shareit.datasource.replica.lag", this,
+                        routing -> routing.replicaLag == null ? Double.NaN : routing.replicaLag.toMillis() / 1000.0)
+                .description("Отставание реплики при последней проверке")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    public ReadTarget currentReadTarget() {
+        ReadTarget pinned = pinnedTarget.get();
+        if (pinned != null) {
+            return pinned;
+        }
+        Duration lag = replicaLag;
+        ReadTarget target = Boolean.TRUE.equals(primaryRequired.get()) || lag == null || lag.compareTo(maxLag) > 0
+                ? ReadTarget.PRIMARY
+                : ReadTarget.REPLICA;
+        routedReads.get(target).increment();
+        return target;
+    }
+
+    /**
+     * Выбирает источник при начале read-only транзакции и закрепляет его до unpin:
+     * соединение берется позже, и к этому моменту выбор не должен измениться.
+     */
+    public ReadTarget pinReadTarget() {
+        pinnedTarget.remove();
+        ReadTarget target = currentReadTarget();
+        pinnedTarget.set(target);
+        return target;
+    }
+
+    public void unpin() {
+        pinnedTarget.remove();
+    }
+
+    public void setReplicaLag(Duration lag) {
+        replicaLag = lag;
+    }
+
+    public boolean isRecentWriter(long userId) {
+        return recentWriters.getIfPresent(userId) != null;
+    }
+
+    public void markWriter(long userId) {
+        recentWriters.put(userId, Boolean.TRUE);
+    }
+
+    public void requirePrimary() {
+        primaryRequired.set(Boolean.TRUE);
+    }
+
+    public void clear() {
+        primaryRequired.remove();
+    }
+
+    private static Counter readsCounter(ReadTarget target, MeterRegistry meterRegistry) {
+        return Counter.builder("shareit.datasource.reads")
+                .description("Соединения read-only транзакций по источнику")
+                .tag("target", target.name().toLowerCase())
+                .register(meterRegistry);
+    }
+}
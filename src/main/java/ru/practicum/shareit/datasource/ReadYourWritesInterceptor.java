@@ -0,0 +1,59 @@
+package ru.practicum.shareit.datasource;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.Set;
+
+/**
+ * Изменяющие запросы целиком работают с основной БД: open-in-view держит одно соединение
+ * на весь запрос, и чтение с реплики в начале запроса сделало бы невозможной последующую запись.
+ * После успешной записи пользователь на sticky-window закрепляется за основной БД,
+ * чтобы сразу видеть свои изменения независимо от отставания реплики.
+ */
+@RequiredArgsConstructor
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+    private static final String SHARER_HEADER = "X-Sharer-User-Id";
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final ReadRouting routing;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Long sharerId = sharerId(request);
+        if (!READ_METHODS.contains(request.getMethod()) || (sharerId != null && routing.isRecentWriter(sharerId))) {
+            routing.requirePrimary();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        routing.clear();
+        Long sharerId = sharerId(request);
+        if (sharerId != null && !READ_METHODS.contains(request.getMethod()) && response.getStatus() < 400) {
+            routing.markWriter(sharerId);
+        }
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        routing.clear();
+    }
+
+    private Long sharerId(HttpServletRequest request) {
+        String header = request.getHeader(SHARER_HEADER);
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
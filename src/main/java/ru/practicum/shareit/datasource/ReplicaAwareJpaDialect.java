@@ -0,0 +1,75 @@
+package ru.practicum.shareit.datasource;
+
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+
+import java.sql.SQLException;
+
+/**
+ * Read-only транзакции, ушедшие на реплику, читают кэш второго уровня, но не пополняют его.
+ * Иначе отставшая строка реплики попала бы в общий кэш узла и на время его жизни
+ * вернулась бы и тем запросам, которые должны видеть свои записи из основной БД.
+ */
+@RequiredArgsConstructor
+public class ReplicaAwareJpaDialect extends HibernateJpaDialect {
+    private final transient ReadRouting routing;
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException, TransactionException {
+        if (!definition.isReadOnly()) {
+            return super.beginTransaction(entityManager, definition);
+        }
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode previousCacheMode = session.getCacheMode();
+        if (routing.pinReadTarget() == ReadTarget.REPLICA) {
+            // find() берет режим из свойства EntityManager, запросы — из режима сессии
+            entityManager.setProperty(AvailableSettings.JAKARTA_SHARED_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+            session.setCacheMode(CacheMode.GET);
+        }
+        try {
+            return new ReadOnlyTransactionData(super.beginTransaction(entityManager, definition), entityManager,
+                    previousCacheMode);
+        } catch (PersistenceException | SQLException | TransactionException e) {
+            restoreCacheMode(entityManager, previousCacheMode);
+            routing.unpin();
+            throw e;
+        }
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (!(transactionData instanceof ReadOnlyTransactionData data)) {
+            super.cleanupTransaction(transactionData);
+            return;
+        }
+        try {
+            super.cleanupTransaction(data.delegate);
+        } finally {
+            if (data.entityManager.isOpen()) {
+                restoreCacheMode(data.entityManager, data.previousCacheMode);
+            }
+            routing.unpin();
+        }
+    }
+
+    private static void restoreCacheMode(EntityManager entityManager, CacheMode cacheMode) {
+        entityManager.setProperty(AvailableSettings.JAKARTA_SHARED_CACHE_STORE_MODE, cacheMode.getJpaStoreMode());
+        entityManager.unwrap(Session.class).setCacheMode(cacheMode);
+    }
+
+    @RequiredArgsConstructor
+    private static class ReadOnlyTransactionData {
+        private final Object delegate;
+        private final EntityManager entityManager;
+        private final CacheMode previousCacheMode;
+    }
+}
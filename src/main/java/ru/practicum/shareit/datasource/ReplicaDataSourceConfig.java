@@ -0,0 +1,106 @@
+package ru.practicum.shareit.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Включается, если задан shareit.datasource.replica.jdbc-url.
+ * Соединение берется лениво, при первом запросе: к этому моменту транзакция уже помечена
+ * read-only, и такие транзакции уходят в ReplicaRoutingDataSource, остальные — в основную БД.
+ * Источник read-only транзакции выбирается при ее начале в ReplicaAwareJpaDialect.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "shareit.datasource.replica", name = "jdbc-url")
+public class ReplicaDataSourceConfig {
+    // При недоступной реплике чтение переключается на основную БД, долго ждать соединения незачем
+    private static final Duration REPLICA_CONNECTION_TIMEOUT = Duration.ofSeconds(1);
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("shareit.datasource.replica")
+    public HikariDataSource replicaDataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setDriverClassName(primaryDataSource.getDriverClassName());
+        dataSource.setReadOnly(true);
+        dataSource.setConnectionTimeout(REPLICA_CONNECTION_TIMEOUT.toMillis());
+        return dataSource;
+    }
+
+    @Bean
+    public ReadRouting readRouting(@Value("${shareit.datasource.replica.max-lag:PT5S}") Duration maxLag,
+                                   @Value("${shareit.datasource.replica.sticky-window:PT10S}") Duration stickyWindow,
+                                   MeterRegistry meterRegistry) {
+        return new ReadRouting(maxLag, stickyWindow, meterRegistry);
+    }
+
+    @Bean
+    public ReadYourWritesInterceptor readYourWritesInterceptor(ReadRouting readRouting) {
+        return new ReadYourWritesInterceptor(readRouting);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                               ReadRouting readRouting) {
+        return new ReplicaLagMonitor(replicaDataSource, readRouting);
+    }
+
+    @Bean
+    public JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory,
+                                                    ReadRouting readRouting,
+                                                    ObjectProvider<TransactionManagerCustomizers> customizers) {
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory) {
+            // afterPropertiesSet заменяет диалект диалектом фабрики EntityManager, поэтому свой задается после
+            @Override
+            public void afterPropertiesSet() {
+                super.afterPropertiesSet();
+                setJpaDialect(new ReplicaAwareJpaDialect(readRouting));
+            }
+        };
+        customizers.ifAvailable(customizer -> customizer.customize((TransactionManager) transactionManager));
+        return transactionManager;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 ReadRouting readRouting) {
+        ReplicaRoutingDataSource readOnlyDataSource = new ReplicaRoutingDataSource(readRouting);
+        readOnlyDataSource.setTargetDataSources(Map.of(
+                ReadTarget.PRIMARY, primaryDataSource,
+                ReadTarget.REPLICA, replicaDataSource));
+        readOnlyDataSource.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(readOnlyDataSource);
+        return dataSource;
+    }
+}
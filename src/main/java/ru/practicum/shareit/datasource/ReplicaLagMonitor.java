@@ -0,0 +1,49 @@
+package ru.practicum.shareit.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Периодически измеряет отставание реплики. Если все полученные WAL уже применены,
+ * отставание считается нулевым: иначе при отсутствии записей на основной БД
+ * время последней транзакции росло бы и реплика ошибочно считалась отставшей.
+ * Если реплика недоступна, отставание неизвестно и чтение идет на основную БД.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+    private final JdbcTemplate replica;
+    private final ReadRouting routing;
+    private boolean available = true;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, ReadRouting routing) {
+        this.replica = new JdbcTemplate(replicaDataSource);
+        this.routing = routing;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.datasource.replica.lag-check-delay:PT1S}")
+    public void checkLag() {
+        try {
+            Double lagSeconds = replica.queryForObject("SELECT CASE " +
+                    "WHEN NOT pg_is_in_recovery() " +
+                    "OR pg_last_wal_receive_lsn() <= pg_last_wal_replay_lsn() THEN 0 " +
+                    "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END", Double.class);
+            routing.setReplicaLag(lagSeconds == null ? null : Duration.ofMillis(Math.round(lagSeconds * 1000)));
+            if (!available) {
+                log.info("Реплика снова доступна, отставание {} с", lagSeconds);
+                available = true;
+            }
+        } catch (DataAccessException e) {
+            routing.setReplicaLag(null);
+            if (available) {
+                log.warn("Не удалось получить отставание реплики, чтение переключено на основную БД: {}",
+                        e.getMessage());
+                available = false;
+            }
+        }
+    }
+}
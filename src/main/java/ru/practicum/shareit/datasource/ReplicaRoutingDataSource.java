@@ -0,0 +1,42 @@
+package ru.practicum.shareit.datasource;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Источник соединений для read-only транзакций: реплика или, если реплика отстала
+ * либо запрос должен видеть свои записи, основная БД.
+ * Если соединение с репликой получить не удалось, чтение уходит на основную БД
+ * до следующей успешной проверки отставания.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private final ReadRouting routing;
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return routing.currentReadTarget();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        DataSource primary = getResolvedDataSources().get(ReadTarget.PRIMARY);
+        try {
+            return target.getConnection();
+        } catch (SQLException e) {
+            if (target == primary) {
+                throw e;
+            }
+            log.warn("Реплика недоступна, чтение переключено на основную БД: {}", e.getMessage());
+            routing.setReplicaLag(null);
+            return primary.getConnection();
+        }
+    }
+}
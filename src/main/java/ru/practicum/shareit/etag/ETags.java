@@ -0,0 +1,41 @@
+package ru.practicum.shareit.etag;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Строгие ETag из версий строк, а не из тела ответа: совпадение можно проверить одним легким запросом,
+ * не загружая и не сериализуя сущности. Части должны однозначно определять ответ, поэтому в них входят
+ * версии всех строк, из которых он собирается.
+ */
+public class ETags {
+    public static String of(List<?> parts) {
+        return "\"" + DigestUtils.md5DigestAsHex(parts.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Слабый ETag для списков: Tomcat не сжимает ответы со строгим ETag, а сжатое представление
+     * побайтно отличается от исходного. If-None-Match сравнивает ETag без учета слабости.
+     */
+    public static String weakOf(List<?> parts) {
+        return "W/" + of(parts);
+    }
+
+    /**
+     * Ответ 304, если ETag из версий совпал с If-None-Match. Без этого заголовка версии не читаются,
+     * и обычный запрос не платит лишним SQL-запросом: его ETag строится из уже загруженных данных.
+     */
+    public static boolean checkNotModified(WebRequest request, Supplier<Optional<String>> eTag) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) == null) {
+            return false;
+        }
+        Optional<String> currentETag = eTag.get();
+        return currentETag.isPresent() && request.checkNotModified(currentETag.get());
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.etag;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.http.ResponseEntity;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class Versioned<T> {
+    private final T body;
+    private final String eTag;
+
+    public ResponseEntity<T> toResponseEntity() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (eTag != null) {
+            response.eTag(eTag);
+        }
+        return response.body(body);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exception;
+
+public class BookingAlreadyDecidedException extends RuntimeException {
+    public BookingAlreadyDecidedException(String message) {
+        super(message);
+    }
+}
@@ -2,23 +2,26 @@ package ru.practicum.shareit.exception;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
-import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 @Slf4j
 @RestControllerAdvice
 public class ErrorHandler {
 
-    @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     @ExceptionHandler
-    public ErrorResponse errorHandler(final Throwable e) {
-        return new ErrorResponse("error", "Произошла непредвиденная ошибка");
+    public ResponseEntity<ErrorResponse> errorHandler(final Throwable e) {
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "Произошла непредвиденная ошибка");
     }
 
-    @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler({
             NoItemBookingsForThisUserException.class,
             BookingUnavailableItemException.class,
@@ -27,38 +30,84 @@ public class ErrorHandler {
             NoAvailableFieldException.class,
             InvalidDataException.class
     })
-    public ErrorResponse handleInvalidData(final RuntimeException e) {
-        return new ErrorResponse("error", e.getMessage());
+    public ResponseEntity<ErrorResponse> handleInvalidData(final RuntimeException e) {
+        return error(HttpStatus.BAD_REQUEST, e.getMessage());
     }
 
-    @ResponseStatus(HttpStatus.FORBIDDEN)
     @ExceptionHandler
-    public ErrorResponse handleWrongUser(final WrongUserException e) {
-        return new ErrorResponse("error", e.getMessage());
+    public ResponseEntity<ErrorResponse> handleWrongUser(final WrongUserException e) {
+        return error(HttpStatus.FORBIDDEN, e.getMessage());
     }
 
-    @ResponseStatus(HttpStatus.CONFLICT)
+    @ExceptionHandler({
+            DuplicateEmailException.class,
+            BookingOverlapException.class,
+            BookingAlreadyDecidedException.class
+    })
+    public ResponseEntity<ErrorResponse> handleConflict(final RuntimeException e) {
+        return error(HttpStatus.CONFLICT, e.getMessage());
+    }
+
+    /**
+     * Строку успели изменить после того, как ее прочитал этот запрос: версия в UPDATE не совпала.
+     */
     @ExceptionHandler
-    public ErrorResponse duplicateEmail(final DuplicateEmailException e) {
-        return new ErrorResponse("error", e.getMessage());
+    public ResponseEntity<ErrorResponse> handleOptimisticLock(final OptimisticLockingFailureException e) {
+        log.warn("Конфликт версий: {}", e.getMessage());
+        return error(HttpStatus.CONFLICT, "Данные изменены другим запросом, повторите запрос");
     }
 
-    @ResponseStatus(HttpStatus.NOT_FOUND)
     @ExceptionHandler
-    public ErrorResponse handleNotFound(final NotFoundException e) {
-        return new ErrorResponse("error", e.getMessage());
+    public ResponseEntity<ErrorResponse> handleNotFound(final NotFoundException e) {
+        return error(HttpStatus.NOT_FOUND, e.getMessage());
+    }
+
+    /**
+     * Соединение не получено за spring.datasource.hikari.connection-timeout: пул занят или БД недоступна.
+     * На виртуальных потоках Tomcat не ограничивает число одновременных запросов,
+     * и при всплеске нагрузки лишние запросы ждут соединения в пуле Hikari.
+     */
+    @ExceptionHandler({
+            CannotCreateTransactionException.class,
+            DataAccessResourceFailureException.class
+    })
+    public ResponseEntity<ErrorResponse> handleUnavailable(final RuntimeException e) {
+        log.warn("Нет соединения с БД: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new ErrorResponse("error", "Сервис перегружен, повторите запрос позже"));
+    }
+
+    /**
+     * Потоковый ответ превысил shareit.streaming.timeout или shareit.streaming.max-rows. Если строки уже
+     * записаны, статус не изменить, и клиент получает оборванный ответ.
+     */
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handleStreamLimit(final StreamLimitExceededException e) {
+        log.warn("Потоковый ответ прерван: {}", e.getMessage());
+        return error(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
     }
 
-    @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler
-    public ErrorResponse handleNotValidData(final MethodArgumentNotValidException e) {
+    public ResponseEntity<ErrorResponse> handleNotValidData(final MethodArgumentNotValidException e) {
 
         String errorMessage = "Запрос содержит невалидные данные: поле "
                 + e.getFieldError().getField()
                 + " "
                 + e.getFieldError().getDefaultMessage();
 
-        return new ErrorResponse("error", errorMessage);
+        return error(HttpStatus.BAD_REQUEST, errorMessage);
+    }
+
+    /**
+     * Тип ответа задан явно и не выбирается по Accept. Иначе клиент потокового ответа
+     * (Accept: application/x-ndjson) вместо ошибки до первой строки получал бы 500 без тела.
+     */
+    private static ResponseEntity<ErrorResponse> error(HttpStatus status, String description) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new ErrorResponse("error", description));
     }
 
     @Getter
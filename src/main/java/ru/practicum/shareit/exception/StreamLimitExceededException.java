@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exception;
+
+public class StreamLimitExceededException extends RuntimeException {
+    public StreamLimitExceededException(String message) {
+        super(message);
+    }
+}
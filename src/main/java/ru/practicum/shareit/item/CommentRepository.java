@@ -1,7 +1,14 @@
 package ru.practicum.shareit.item;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.model.Comment;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface CommentRepository extends JpaRepository<Comment, Long> {
+
+    @Query("select c from Comment c join fetch c.author where c.item.id in :itemIds")
+    List<Comment> findAllByItemIdIn(Collection<Long> itemIds);
 }
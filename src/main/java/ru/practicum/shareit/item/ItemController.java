@@ -1,7 +1,12 @@
 package ru.practicum.shareit.item;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -11,12 +16,18 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.etag.ETags;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentParamDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.streaming.NdjsonWriter;
+import ru.practicum.shareit.streaming.StreamingLimits;
 
-import java.util.Collection;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * TODO Sprint add-controllers.
@@ -27,20 +38,44 @@ import java.util.Collection;
 public class ItemController {
 
     private final ItemService itemService;
+    private final ObjectMapper objectMapper;
+    private final StreamingLimits streamingLimits;
 
     @PostMapping
     public ItemDto create(@RequestHeader("X-Sharer-User-Id") long sharerId, @Valid @RequestBody Item item) {
         return itemService.create(sharerId, item);
     }
 
+    @PostMapping("/batch")
+    public List<ItemDto> createAll(@RequestHeader("X-Sharer-User-Id") long sharerId, @RequestBody List<Item> items) {
+        return itemService.createAll(sharerId, items);
+    }
+
+    /**
+     * Владелец получает вещь со сводкой бронирований, поэтому ответ и ETag зависят от X-Sharer-User-Id.
+     * Vary выставляется и для 304, чтобы общий кэш не отдал ответ владельца другому пользователю.
+     */
     @GetMapping("/{itemId}")
-    public ItemDto read(@PathVariable long itemId) {
-        return itemService.read(itemId);
+    public ResponseEntity<ItemDto> read(@PathVariable long itemId,
+                                        @RequestHeader(value = "X-Sharer-User-Id", required = false) Long sharerId,
+                                        WebRequest request, HttpServletResponse response) {
+        response.setHeader(HttpHeaders.VARY, "X-Sharer-User-Id");
+        if (ETags.checkNotModified(request, () -> itemService.readETag(itemId, sharerId))) {
+            return null;
+        }
+        return itemService.read(itemId, sharerId).toResponseEntity();
     }
 
     @GetMapping
-    public Collection<ItemDto> readAll(@RequestHeader("X-Sharer-User-Id") long sharerId) {
-        return itemService.readAll(sharerId);
+    public ResponseEntity<List<ItemDto>> readAll(@RequestHeader("X-Sharer-User-Id") long sharerId,
+                                                 @RequestParam(required = false) Integer limit,
+                                                 @RequestParam(required = false) String after,
+                                                 WebRequest request, HttpServletResponse response) {
+        response.setHeader(HttpHeaders.VARY, "X-Sharer-User-Id");
+        if (ETags.checkNotModified(request, () -> itemService.readAllETag(sharerId, limit, after))) {
+            return null;
+        }
+        return itemService.readAll(sharerId, limit, after).toResponseEntity();
     }
 
     @PatchMapping("/{itemId}")
@@ -51,8 +86,29 @@ public class ItemController {
     }
 
     @GetMapping("/search")
-    public Collection<ItemDto> search(@RequestHeader("X-Sharer-User-Id") long sharerId, @RequestParam String text) {
-        return itemService.search(sharerId, text);
+    public ResponseEntity<List<ItemDto>> search(@RequestHeader("X-Sharer-User-Id") long sharerId,
+                                                @RequestParam String text,
+                                                @RequestParam(required = false)
+                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                @RequestParam(required = false)
+                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                @RequestParam(required = false) Integer limit,
+                                                @RequestParam(required = false) String after) {
+        return itemService.search(sharerId, text, from, to, limit, after).toResponseEntity();
+    }
+
+    @GetMapping(path = "/search", produces = NdjsonWriter.MEDIA_TYPE)
+    public void streamSearch(@RequestHeader("X-Sharer-User-Id") long sharerId,
+                             @RequestParam String text,
+                             @RequestParam(required = false)
+                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                             @RequestParam(required = false)
+                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                             HttpServletResponse response) throws IOException {
+        response.setContentType(NdjsonWriter.MEDIA_TYPE);
+        try (NdjsonWriter writer = streamingLimits.newWriter(objectMapper, response.getOutputStream())) {
+            itemService.streamSearch(sharerId, text, from, to, writer);
+        }
     }
 
     @PostMapping("/{itemId}/comment")
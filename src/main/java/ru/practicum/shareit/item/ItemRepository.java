@@ -1,19 +1,144 @@
 package ru.practicum.shareit.item;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.practicum.shareit.item.dto.ItemVersionView;
 import ru.practicum.shareit.item.model.Item;
 
-import java.util.Collection;
-import java.util.Set;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
+    // Условие совпадает с ix_bookings_item_period, поэтому проверка идет по его GiST-индексу,
+    // а end_date > :fromTimeStamp отсекает секции bookings, закончившиеся до начала периода
+    String BOOKED_IN_WINDOW = "SELECT 1 FROM bookings b " +
+            "WHERE b.item_id = i.id " +
+            "AND b.status IN ('WAITING', 'APPROVED') " +
+            "AND b.end_date > :fromTimeStamp " +
+            "AND tsrange(b.start_date, b.end_date) && tsrange(:fromTimeStamp, :toTimeStamp)";
 
-    Collection<Item> findByOwnerId(long ownerId);
+    String SEARCH_BY_NAME = "SELECT i.* FROM items i " +
+            "WHERE i.is_available = true " +
+            "AND i.name ILIKE CONCAT('%', :text, '%') ";
 
-    @Query(value = "select i from Item i " +
-            "where (upper(i.name) like upper(%:text%) or upper(i.description) like upper(%:text%)) " +
-            "and i.available=true")
-    Set<Item> search(String text);
+    String SEARCH_BY_DESCRIPTION_ONLY = "SELECT i.* FROM items i " +
+            "WHERE i.is_available = true " +
+            "AND i.description ILIKE CONCAT('%', :text, '%') " +
+            "AND i.name NOT ILIKE CONCAT('%', :text, '%') ";
+
+    String STREAM_FETCH_SIZE = "500";
+
+    // Отзывы только добавляются, поэтому их состояние задают количество и последний id,
+    // а переименование автора видно по сумме версий авторов
+    String ITEM_VERSION_SELECT = "SELECT i.id AS id, i.owner_id AS ownerId, i.version AS version, " +
+            "c.comment_count AS commentCount, c.last_comment_id AS lastCommentId, " +
+            "c.author_versions AS authorVersions, " +
+            "s.item_id AS itemId, s.last_booking AS lastBooking, s.next_booking AS nextBooking, " +
+            "s.total_bookings AS totalBookings, s.current_booker_id AS currentBookerId, " +
+            "s.valid_until AS validUntil " +
+            "FROM items i " +
+            "LEFT JOIN item_booking_summaries s ON s.item_id = i.id " +
+            "CROSS JOIN LATERAL (SELECT COUNT(*) AS comment_count, MAX(cm.id) AS last_comment_id, " +
+            "CAST(COALESCE(SUM(u.version), 0) AS BIGINT) AS author_versions " +
+            "FROM comments cm JOIN users u ON u.id = cm.author_id WHERE cm.item_id = i.id) c ";
+
+    /**
+     * Планировать запросы поиска заново при каждом выполнении до конца текущей транзакции.
+     * Общий план подготовленного запроса не знает шаблон ILIKE и сканирует вещи по первичному ключу.
+     */
+    @Query(value = "SELECT set_config('plan_cache_mode', 'force_custom_plan', true)", nativeQuery = true)
+    String useCustomPlansInTransaction();
+
+    Window<Item> findByOwnerId(long ownerId, ScrollPosition position, Limit limit, Sort sort);
+
+    @Query(value = ITEM_VERSION_SELECT + "WHERE i.id = :itemId", nativeQuery = true)
+    Optional<ItemVersionView> findItemVersion(long itemId);
+
+    /**
+     * Версии страницы вещей владельца в порядке findByOwnerId. limit = null читает все вещи.
+     */
+    @Query(value = ITEM_VERSION_SELECT +
+            "WHERE i.owner_id = :ownerId AND i.id > :afterId " +
+            "ORDER BY i.id " +
+            "LIMIT :limit", nativeQuery = true)
+    List<ItemVersionView> findItemVersionsByOwnerId(long ownerId, long afterId, Integer limit);
+
+    @Query(value = SEARCH_BY_NAME +
+            "AND i.id > :afterId " +
+            "ORDER BY i.id " +
+            "LIMIT :limit", nativeQuery = true)
+    List<Item> searchByName(String text, long afterId, long limit);
+
+    @Query(value = SEARCH_BY_DESCRIPTION_ONLY +
+            "AND i.id > :afterId " +
+            "ORDER BY i.id " +
+            "LIMIT :limit", nativeQuery = true)
+    List<Item> searchByDescriptionOnly(String text, long afterId, long limit);
+
+    @Query(value = SEARCH_BY_NAME +
+            "AND i.id > :afterId " +
+            "AND NOT EXISTS (" + BOOKED_IN_WINDOW + ") " +
+            "ORDER BY i.id " +
+            "LIMIT :limit", nativeQuery = true)
+    List<Item> searchByNameAvailableBetween(String text, Timestamp fromTimeStamp, Timestamp toTimeStamp,
+                                            long afterId, long limit);
+
+    @Query(value = SEARCH_BY_DESCRIPTION_ONLY +
+            "AND i.id > :afterId " +
+            "AND NOT EXISTS (" + BOOKED_IN_WINDOW + ") " +
+            "ORDER BY i.id " +
+            "LIMIT :limit", nativeQuery = true)
+    List<Item> searchByDescriptionOnlyAvailableBetween(String text, Timestamp fromTimeStamp, Timestamp toTimeStamp,
+                                                       long afterId, long limit);
+
+    // Потоковый поиск для NDJSON: курсор с fetch size, вещи только для чтения и мимо кэша второго уровня,
+    // чтобы полная выгрузка не вытесняла из него часто читаемые вещи
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query(value = SEARCH_BY_NAME +
+            "ORDER BY i.id", nativeQuery = true)
+    Stream<Item> streamByName(String text);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query(value = SEARCH_BY_DESCRIPTION_ONLY +
+            "ORDER BY i.id", nativeQuery = true)
+    Stream<Item> streamByDescriptionOnly(String text);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query(value = SEARCH_BY_NAME +
+            "AND NOT EXISTS (" + BOOKED_IN_WINDOW + ") " +
+            "ORDER BY i.id", nativeQuery = true)
+    Stream<Item> streamByNameAvailableBetween(String text, Timestamp fromTimeStamp, Timestamp toTimeStamp);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query(value = SEARCH_BY_DESCRIPTION_ONLY +
+            "AND NOT EXISTS (" + BOOKED_IN_WINDOW + ") " +
+            "ORDER BY i.id", nativeQuery = true)
+    Stream<Item> streamByDescriptionOnlyAvailableBetween(String text, Timestamp fromTimeStamp,
+                                                         Timestamp toTimeStamp);
 
 }
@@ -1,24 +1,40 @@
 package ru.practicum.shareit.item;
 
+import ru.practicum.shareit.etag.Versioned;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentParamDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.streaming.NdjsonWriter;
 
-import java.util.Collection;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 public interface ItemService {
     ItemDto create(long sharerId, Item item);
 
-    ItemDto read(long itemId);
+    List<ItemDto> createAll(long sharerId, List<Item> items);
 
-    Collection<ItemDto> readAll(long sharerId);
+    Versioned<ItemDto> read(long itemId, Long sharerId);
+
+    Optional<String> readETag(long itemId, Long sharerId);
+
+    CursorPage<ItemDto> readAll(long sharerId, Integer limit, String after);
+
+    Optional<String> readAllETag(long sharerId, Integer limit, String after);
 
     ItemDto update(long itemId, long sharerId, Item item);
 
     void delete(long sharerId, long itemId);
 
-    Collection<ItemDto> search(long sharerId, String text);
+    CursorPage<ItemDto> search(long sharerId, String text, LocalDateTime from, LocalDateTime to,
+                               Integer limit, String after);
+
+    void streamSearch(long sharerId, String text, LocalDateTime from, LocalDateTime to,
+                      NdjsonWriter writer) throws IOException;
 
     CommentDto createComment(long sharerId, long itemId, CommentParamDto commentParamDto);
 }
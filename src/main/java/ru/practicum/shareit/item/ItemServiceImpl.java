@@ -1,10 +1,22 @@
 package ru.practicum.shareit.item;
 
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.dto.ItemBookingSummary;
+import ru.practicum.shareit.etag.ETags;
+import ru.practicum.shareit.etag.Versioned;
+import ru.practicum.shareit.exception.InvalidDataException;
 import ru.practicum.shareit.exception.NoAvailableFieldException;
 import ru.practicum.shareit.exception.NoItemBookingsForThisUserException;
 import ru.practicum.shareit.exception.NotFoundException;
@@ -13,16 +25,31 @@ import ru.practicum.shareit.item.dto.CommentMapper;
 import ru.practicum.shareit.item.dto.CommentParamDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemVersionView;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.Cursors;
+import ru.practicum.shareit.streaming.NdjsonWriter;
+import ru.practicum.shareit.streaming.StreamingLimits;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.dto.UserIdOnlyDto;
 
+import java.io.IOException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -32,6 +59,19 @@ public class ItemServiceImpl implements ItemService {
     private final UserRepository users;
     private final BookingRepository bookings;
     private final CommentRepository comments;
+    private final EntityManager entityManager;
+    private final StreamingLimits streamingLimits;
+
+    private static final int MAX_IMPORT_SIZE = 10000;
+    /**
+     * Изменяемая вещь читается из БД, а не из кэша второго уровня: кэш узла может хранить прежнюю версию,
+     * и обновление по ней всегда завершалось бы конфликтом версий. Прочитанная строка заменяет запись кэша.
+     */
+    private static final Map<String, Object> BYPASS_CACHE = Map.of(
+            SpecHints.HINT_SPEC_CACHE_RETRIEVE_MODE, CacheRetrieveMode.BYPASS,
+            SpecHints.HINT_SPEC_CACHE_STORE_MODE, CacheStoreMode.REFRESH);
+
+    private static final int MAX_IDS_PER_QUERY = 1000;
 
     @Transactional
     @Override
@@ -54,43 +94,157 @@ public class ItemServiceImpl implements ItemService {
         return itemDto;
     }
 
+    @Transactional
+    @Override
+    public List<ItemDto> createAll(long sharerId, List<Item> newItems) {
+        log.info("Импорт {} вещей пользователя с id = {}", newItems.size(), sharerId);
+        if (newItems.isEmpty() || newItems.size() > MAX_IMPORT_SIZE) {
+            log.error("Недопустимый размер импорта {}", newItems.size());
+            throw new InvalidDataException("За один раз можно импортировать от 1 до " + MAX_IMPORT_SIZE + " вещей");
+        }
+
+        Optional<User> optionalUser = users.findById(sharerId);
+        if (optionalUser.isEmpty()) {
+            log.error("Пользователь не найден");
+            throw new NotFoundException("Пользователь не найден");
+        }
+
+        for (Item item : newItems) {
+            if (item.getAvailable() == null) {
+                log.error("Отстутсвует поле \"available\" у вещи {}", item);
+                throw new NoAvailableFieldException("Отстутсвует поле \"available\"");
+            }
+            if (item.getName() == null || item.getName().isBlank()
+                    || item.getDescription() == null || item.getDescription().isBlank()) {
+                log.error("Не заполнено название или описание вещи {}", item);
+                throw new InvalidDataException("Запрос содержит невалидные данные: не заполнено название или описание");
+            }
+            item.setId(null);
+            item.setOwner(optionalUser.get());
+        }
+
+        List<ItemDto> createdItems = items.saveAll(newItems).stream()
+                .map(ItemMapper::mapToItemDto)
+                .toList();
+        log.info("Импортировано {} вещей пользователя с id = {}", createdItems.size(), sharerId);
+        return createdItems;
+    }
+
+    @Transactional(readOnly = true)
     @Override
-    public ItemDto read(long itemId) {
+    public Versioned<ItemDto> read(long itemId, Long sharerId) {
         log.info("Чтение вещи с id = {}", itemId);
-        ItemDto itemDto = ItemMapper.mapToItemDto(items.findById(itemId).orElse(new Item()));
+        Item item = items.findById(itemId).orElse(new Item());
+        ItemDto itemDto = ItemMapper.mapToItemDto(item);
+        if (item.getId() == null) {
+            return new Versioned<>(itemDto, null);
+        }
+        boolean owner = item.getOwner() != null && Objects.equals(item.getOwner().getId(), sharerId);
+        ItemBookingSummary summary = null;
+        if (owner) {
+            summary = findBookingSummaries(List.of(itemId), LocalDateTime.now()).get(itemId);
+            setBookingSummary(itemDto, summary);
+        }
+        List<Object> versionParts = new ArrayList<>();
+        addVersionParts(versionParts, item, item.getComments(), owner, summary);
         log.info("Прочитана вещь с id = {}, {}", itemId, itemDto);
-        return itemDto;
+        return new Versioned<>(itemDto, ETags.of(versionParts));
     }
 
+    @Transactional(readOnly = true)
     @Override
-    public Collection<ItemDto> readAll(long sharerId) {
+    public Optional<String> readETag(long itemId, Long sharerId) {
+        Optional<ItemVersionView> optionalVersion = items.findItemVersion(itemId);
+        if (optionalVersion.isEmpty()) {
+            return Optional.empty();
+        }
+        ItemVersionView version = optionalVersion.get();
+        boolean owner = Objects.equals(version.getOwnerId(), sharerId);
+        if (owner && isStale(version, LocalDateTime.now())) {
+            return Optional.empty();
+        }
+        List<Object> versionParts = new ArrayList<>();
+        addVersionParts(versionParts, version, owner);
+        return Optional.of(ETags.of(versionParts));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public CursorPage<ItemDto> readAll(long sharerId, Integer limit, String after) {
         log.info("Чтение вещей пользователя c id = {}", sharerId);
 
-        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        LocalDateTime now = LocalDateTime.now();
 
-        Collection<ItemDto> sharerItems = items.findByOwnerId(sharerId).stream()
-                .map(ItemMapper::mapToItemDto)
-                .peek(itemDto -> itemDto.setLastBooking(bookings.findLastBookingEndDate(itemDto.getId(), now)))
-                .peek(itemDto -> itemDto.setNextBooking(bookings.findNextBookingStartDate(itemDto.getId(), now)))
+        Window<Item> ownerItems = items.findByOwnerId(sharerId,
+                Cursors.decode(after, "id"),
+                Cursors.toLimit(limit),
+                Sort.by("id"));
+        List<Object> versionParts = new ArrayList<>();
+        versionParts.add(ownerItems.hasNext());
+        if (ownerItems.isEmpty()) {
+            return new CursorPage<ItemDto>(new ArrayList<>(), null).withETag(ETags.weakOf(versionParts));
+        }
+        List<Long> itemIds = ownerItems.stream()
+                .map(Item::getId)
                 .toList();
+
+        Map<Long, ItemBookingSummary> bookingSummaries = new HashMap<>();
+        for (int from = 0; from < itemIds.size(); from += MAX_IDS_PER_QUERY) {
+            List<Long> chunk = itemIds.subList(from, Math.min(from + MAX_IDS_PER_QUERY, itemIds.size()));
+            bookingSummaries.putAll(findBookingSummaries(chunk, now));
+        }
+        Map<Long, List<Comment>> itemComments = findComments(itemIds);
+
+        CursorPage<ItemDto> sharerItems = Cursors.toPage(ownerItems, item -> {
+            List<Comment> comments = itemComments.getOrDefault(item.getId(), List.of());
+            ItemDto itemDto = ItemMapper.mapToItemDto(item, comments);
+            setBookingSummary(itemDto, bookingSummaries.get(item.getId()));
+            addVersionParts(versionParts, item, comments, true, bookingSummaries.get(item.getId()));
+            return itemDto;
+        }).withETag(ETags.weakOf(versionParts));
         log.info("Чтение вещей пользователя c id = {} {}", sharerId, sharerItems);
         return sharerItems;
     }
 
+    /**
+     * ETag страницы из версий, без загрузки вещей и отзывов. Пусто, если хотя бы одна сводка бронирований
+     * устарела: тогда ответ зависит от пересчета при чтении, и запрос обрабатывается целиком.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public Optional<String> readAllETag(long sharerId, Integer limit, String after) {
+        KeysetScrollPosition position = Cursors.decode(after, "id");
+        Limit pageLimit = Cursors.toLimit(limit);
+        long afterId = position.isInitial() ? 0 : (Long) position.getKeys().get("id");
+        List<ItemVersionView> versions = items.findItemVersionsByOwnerId(sharerId, afterId,
+                pageLimit.isLimited() ? pageLimit.max() + 1 : null);
+        boolean hasNext = pageLimit.isLimited() && versions.size() > pageLimit.max();
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object> versionParts = new ArrayList<>();
+        versionParts.add(hasNext);
+        for (ItemVersionView version : hasNext ? versions.subList(0, pageLimit.max()) : versions) {
+            if (isStale(version, now)) {
+                return Optional.empty();
+            }
+            addVersionParts(versionParts, version, true);
+        }
+        return Optional.of(ETags.weakOf(versionParts));
+    }
+
     @Transactional
     @Override
     public ItemDto update(long itemId, long sharerId, Item item) {
         log.info("Обновление вещи c id = {} пользователя с id = {}", itemId, sharerId);
-        if (!isUserValid(sharerId, itemId)) {
+        Item oldItem = entityManager.find(Item.class, itemId, BYPASS_CACHE);
+        if (oldItem == null) {
+            throw new NotFoundException("Вещь с id = " + itemId + " не найдена");
+        }
+        if (oldItem.getOwner() == null || oldItem.getOwner().getId() != sharerId) {
             log.error("Эта вещь не принадлежит пользователю с id = " + sharerId);
             throw new NotFoundException("Эта вещь не принадлежит пользователю с id = " + sharerId);
         }
-
-        Optional<Item> optionalItem = items.findById(itemId);
-        if (optionalItem.isEmpty()) {
-            throw new NotFoundException("Вещь с id = " + itemId + " не найдена");
-        }
-        Item updatedItem = updateItemFieldsForPatch(optionalItem.get(), item);
+        Item updatedItem = updateItemFieldsForPatch(oldItem, item);
 
         ItemDto itemDto = ItemMapper.mapToItemDto(items.save(updatedItem));
         log.info("Обновление вещи c id = {} пользователя с id = {} {}", itemId, sharerId, itemDto);
@@ -107,21 +261,96 @@ public class ItemServiceImpl implements ItemService {
         items.deleteById(itemId);
     }
 
+    @Transactional(readOnly = true)
     @Override
-    public Collection<ItemDto> search(long sharerId, String text) {
-        log.info("Поиск вещи по строке {}", text);
+    public CursorPage<ItemDto> search(long sharerId, String text, LocalDateTime from, LocalDateTime to,
+                                      Integer limit, String after) {
+        log.info("Поиск вещи по строке {}, свободной в период {} - {}", text, from, to);
+        checkSearchPeriod(from, to);
         if (text.isEmpty()) {
             log.info("Задана пустая поисковая строка");
-            return new ArrayList<>();
+            return new CursorPage<>(new ArrayList<>(), null);
         }
 
-        Collection<ItemDto> searchResult = items.search(text).stream()
-                .map(ItemMapper::mapToItemDto)
-                .toList();
-        log.info("Результаты поиска вещи по строке {} {}", text, searchResult);
+        KeysetScrollPosition position = Cursors.decode(after, "nameMatch", "id");
+        Limit pageLimit = Cursors.toLimit(limit);
+        long fetchSize = pageLimit.isLimited() ? pageLimit.max() + 1L : Long.MAX_VALUE;
+        String pattern = escapeLikePattern(text);
+
+        boolean inNameMatches = position.isInitial() || (Boolean) position.getKeys().get("nameMatch");
+        long afterId = position.isInitial() ? 0 : (Long) position.getKeys().get("id");
+
+        Timestamp fromTimeStamp = from == null ? null : Timestamp.valueOf(from);
+        Timestamp toTimeStamp = to == null ? null : Timestamp.valueOf(to);
+
+        items.useCustomPlansInTransaction();
+        List<Item> found = new ArrayList<>();
+        if (inNameMatches) {
+            found.addAll(from == null
+                    ? items.searchByName(pattern, afterId, fetchSize)
+                    : items.searchByNameAvailableBetween(pattern, fromTimeStamp, toTimeStamp, afterId, fetchSize));
+            afterId = 0;
+        }
+        int nameMatches = found.size();
+        if (found.size() < fetchSize) {
+            long rest = fetchSize - found.size();
+            found.addAll(from == null
+                    ? items.searchByDescriptionOnly(pattern, afterId, rest)
+                    : items.searchByDescriptionOnlyAvailableBetween(pattern, fromTimeStamp, toTimeStamp, afterId, rest));
+        }
+
+        String nextCursor = null;
+        if (found.size() == fetchSize) {
+            found.removeLast();
+            int lastIndex = found.size() - 1;
+            nextCursor = Cursors.encode(Map.of(
+                    "nameMatch", inNameMatches && lastIndex < nameMatches,
+                    "id", found.get(lastIndex).getId()));
+        }
+
+        Map<Long, List<Comment>> itemComments = findComments(found.stream()
+                .map(Item::getId)
+                .toList());
+        CursorPage<ItemDto> searchResult = new CursorPage<>(found.stream()
+                .map(item -> ItemMapper.mapToItemDto(item, itemComments.getOrDefault(item.getId(), List.of())))
+                .toList(), nextCursor);
+        log.info("Найдено {} вещей по строке {}, следующая страница {}", searchResult.getItems().size(), text,
+                nextCursor);
         return searchResult;
     }
 
+    /**
+     * Все результаты search одним ответом без курсоров: сначала совпадения по названию, затем только по описанию.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public void streamSearch(long sharerId, String text, LocalDateTime from, LocalDateTime to,
+                             NdjsonWriter writer) throws IOException {
+        log.info("Потоковый поиск вещи по строке {}, свободной в период {} - {}", text, from, to);
+        checkSearchPeriod(from, to);
+        if (text.isEmpty()) {
+            log.info("Задана пустая поисковая строка");
+            return;
+        }
+        String pattern = escapeLikePattern(text);
+        Timestamp fromTimeStamp = from == null ? null : Timestamp.valueOf(from);
+        Timestamp toTimeStamp = to == null ? null : Timestamp.valueOf(to);
+
+        streamingLimits.limitTransaction();
+        items.useCustomPlansInTransaction();
+        try (Stream<Item> nameMatches = from == null
+                ? items.streamByName(pattern)
+                : items.streamByNameAvailableBetween(pattern, fromTimeStamp, toTimeStamp)) {
+            writeWithComments(nameMatches, writer);
+        }
+        try (Stream<Item> descriptionMatches = from == null
+                ? items.streamByDescriptionOnly(pattern)
+                : items.streamByDescriptionOnlyAvailableBetween(pattern, fromTimeStamp, toTimeStamp)) {
+            writeWithComments(descriptionMatches, writer);
+        }
+        log.info("Записано {} вещей по строке {}", writer.getCount(), text);
+    }
+
     @Transactional
     @Override
     public CommentDto createComment(long sharerId, long itemId, CommentParamDto commentParamDto) {
@@ -155,18 +384,144 @@ public class ItemServiceImpl implements ItemService {
         return commentDto;
     }
 
+    private void checkSearchPeriod(LocalDateTime from, LocalDateTime to) {
+        if ((from == null) != (to == null)) {
+            log.error("Период поиска задан не полностью: {} - {}", from, to);
+            throw new InvalidDataException("Период поиска задается обоими параметрами from и to");
+        }
+        if (from != null && !from.isBefore(to)) {
+            log.error("Начало периода поиска {} не раньше конца {}", from, to);
+            throw new InvalidDataException("Начало периода поиска должно быть раньше конца");
+        }
+    }
+
+    /**
+     * Пишет вещи порциями по MAX_IDS_PER_QUERY: отзывы порции читаются одним запросом, а после записи
+     * контекст персистентности очищается, иначе все прочитанные вещи и отзывы оставались бы в нем до конца запроса.
+     */
+    private void writeWithComments(Stream<Item> found, NdjsonWriter writer) throws IOException {
+        List<Item> batch = new ArrayList<>(MAX_IDS_PER_QUERY);
+        for (Iterator<Item> it = found.iterator(); it.hasNext(); ) {
+            batch.add(it.next());
+            if (batch.size() < MAX_IDS_PER_QUERY && it.hasNext()) {
+                continue;
+            }
+            Map<Long, List<Comment>> itemComments = findComments(batch.stream()
+                    .map(Item::getId)
+                    .toList());
+            for (Item item : batch) {
+                writer.write(ItemMapper.mapToItemDto(item, itemComments.getOrDefault(item.getId(), List.of())));
+            }
+            batch.clear();
+            entityManager.clear();
+        }
+    }
+
     private boolean isUserValid(long sharerId, long itemId) {
         return sharerId == items.findById(itemId).get()
                 .getOwner()
                 .getId();
     }
 
+    /**
+     * Комментарии с авторами для всех вещей страницы одним запросом на MAX_IDS_PER_QUERY вещей,
+     * а не ленивой загрузкой Item.comments для каждой вещи.
+     */
+    private Map<Long, List<Comment>> findComments(List<Long> itemIds) {
+        Map<Long, List<Comment>> itemComments = new HashMap<>();
+        for (int from = 0; from < itemIds.size(); from += MAX_IDS_PER_QUERY) {
+            List<Long> chunk = itemIds.subList(from, Math.min(from + MAX_IDS_PER_QUERY, itemIds.size()));
+            itemComments.putAll(comments.findAllByItemIdIn(chunk).stream()
+                    .collect(Collectors.groupingBy(comment -> comment.getItem().getId())));
+        }
+        return itemComments;
+    }
+
+    private Map<Long, ItemBookingSummary> findBookingSummaries(List<Long> itemIds, LocalDateTime now) {
+        Map<Long, ItemBookingSummary> summaries = bookings.findItemBookingSummaries(itemIds).stream()
+                .collect(Collectors.toMap(ItemBookingSummary::getItemId, Function.identity()));
+        List<Long> staleItemIds = summaries.values().stream()
+                .filter(summary -> isStale(summary, now))
+                .map(ItemBookingSummary::getItemId)
+                .toList();
+        if (!staleItemIds.isEmpty()) {
+            log.debug("Сводки бронирований вещей {} устарели, пересчитываем при чтении", staleItemIds);
+            bookings.computeItemBookingSummaries(staleItemIds, Timestamp.valueOf(now))
+                    .forEach(summary -> summaries.put(summary.getItemId(), summary));
+        }
+        return summaries;
+    }
+
+    private static boolean isStale(ItemBookingSummary summary, LocalDateTime now) {
+        return summary.getValidUntil() != null && !summary.getValidUntil().isAfter(now);
+    }
+
+    private static void addVersionParts(List<Object> parts, Item item, List<Comment> itemComments, boolean owner,
+                                        ItemBookingSummary summary) {
+        parts.add(item.getId());
+        parts.add(item.getVersion());
+        parts.add((long) itemComments.size());
+        parts.add(itemComments.stream()
+                .map(Comment::getId)
+                .max(Long::compare)
+                .orElse(null));
+        parts.add(itemComments.stream()
+                .mapToLong(comment -> comment.getAuthor().getVersion())
+                .sum());
+        if (owner) {
+            addSummaryParts(parts, summary);
+        }
+    }
+
+    /**
+     * Те же части, что у загруженной вещи: ETag из версий совпадает с ETag полного ответа.
+     */
+    private static void addVersionParts(List<Object> parts, ItemVersionView version, boolean owner) {
+        parts.add(version.getId());
+        parts.add(version.getVersion());
+        parts.add(version.getCommentCount());
+        parts.add(version.getLastCommentId());
+        parts.add(version.getAuthorVersions());
+        if (owner) {
+            addSummaryParts(parts, version.getItemId() == null ? null : version);
+        }
+    }
+
+    private static void addSummaryParts(List<Object> parts, ItemBookingSummary summary) {
+        if (summary == null) {
+            parts.add(List.of(0L));
+            return;
+        }
+        parts.add(Arrays.asList(summary.getLastBooking(), summary.getNextBooking(), summary.getTotalBookings(),
+                summary.getCurrentBookerId()));
+    }
+
+    private void setBookingSummary(ItemDto itemDto, ItemBookingSummary summary) {
+        if (summary == null) {
+            itemDto.setTotalBookings(0L);
+            return;
+        }
+        itemDto.setLastBooking(summary.getLastBooking());
+        itemDto.setNextBooking(summary.getNextBooking());
+        itemDto.setTotalBookings(summary.getTotalBookings());
+        if (summary.getCurrentBookerId() != null) {
+            itemDto.setCurrentBooker(UserIdOnlyDto.builder()
+                    .id(summary.getCurrentBookerId())
+                    .build());
+        }
+    }
+
+    private String escapeLikePattern(String text) {
+        return text.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+
     private Item updateItemFieldsForPatch(Item oldItem, Item newItem) {
-        Item item = new Item();
-        item.setName(newItem.getName() == null ? oldItem.getName() : newItem.getName());
-        item.setDescription(newItem.getDescription() == null ? oldItem.getDescription() : newItem.getDescription());
-        item.setAvailable(newItem.getAvailable() == null ? oldItem.getAvailable() : newItem.getAvailable());
-        return item;
+        oldItem.setName(newItem.getName() == null ? oldItem.getName() : newItem.getName());
+        oldItem.setDescription(newItem.getDescription() == null ? oldItem.getDescription() : newItem.getDescription());
+        oldItem.setAvailable(newItem.getAvailable() == null ? oldItem.getAvailable() : newItem.getAvailable());
+        return oldItem;
     }
 
 }
@@ -3,6 +3,7 @@ package ru.practicum.shareit.item.dto;
 import lombok.Builder;
 import lombok.Data;
 import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.user.dto.UserIdOnlyDto;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -20,5 +21,7 @@ public class ItemDto {
     private ItemRequest request;
     private LocalDateTime lastBooking;
     private LocalDateTime nextBooking;
+    private Long totalBookings;
+    private UserIdOnlyDto currentBooker;
     private List<CommentDto> comments;
 }
@@ -1,16 +1,23 @@
 package ru.practicum.shareit.item.dto;
 
+import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 
+import java.util.Collection;
+
 public class ItemMapper {
     public static ItemDto mapToItemDto(Item item) {
+        return mapToItemDto(item, item.getComments());
+    }
+
+    public static ItemDto mapToItemDto(Item item, Collection<Comment> comments) {
 
         return ItemDto.builder()
                 .id(item.getId())
                 .name(item.getName())
                 .description(item.getDescription())
                 .available(item.getAvailable())
-                .comments(item.getComments().stream().map(CommentMapper::mapToCommentDto).toList())
+                .comments(comments.stream().map(CommentMapper::mapToCommentDto).toList())
                 .build();
     }
 
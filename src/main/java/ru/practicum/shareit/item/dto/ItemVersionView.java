@@ -0,0 +1,21 @@
+package ru.practicum.shareit.item.dto;
+
+import ru.practicum.shareit.booking.dto.ItemBookingSummary;
+
+/**
+ * Все, от чего зависит ответ с вещью: версия самой вещи, отзывы с версиями их авторов и сводка бронирований.
+ * Поля сводки пустые, если у вещи еще нет бронирований.
+ */
+public interface ItemVersionView extends ItemBookingSummary {
+    Long getId();
+
+    Long getOwnerId();
+
+    Long getVersion();
+
+    Long getCommentCount();
+
+    Long getLastCommentId();
+
+    Long getAuthorVersions();
+}
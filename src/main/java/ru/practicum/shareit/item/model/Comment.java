@@ -8,6 +8,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -25,7 +26,8 @@ import java.time.LocalDateTime;
 @Table(name = "comments", schema = "public")
 public class Comment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comments_id_seq")
+    @SequenceGenerator(name = "comments_id_seq", sequenceName = "comments_id_seq", allocationSize = 50)
     private Long id;
     @ManyToOne
     @JoinColumn(name = "item_id")
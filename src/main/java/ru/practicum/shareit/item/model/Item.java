@@ -1,5 +1,6 @@
 package ru.practicum.shareit.item.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -9,12 +10,16 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import ru.practicum.shareit.user.User;
 
 import java.util.ArrayList;
@@ -29,9 +34,12 @@ import java.util.Objects;
 @ToString
 @Entity
 @Table(name = "items", schema = "public")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Item {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_id_seq")
+    @SequenceGenerator(name = "items_id_seq", sequenceName = "items_id_seq", allocationSize = 50)
     private Long id;
     @NotNull
     @NotBlank
@@ -51,6 +59,9 @@ public class Item {
     @ToString.Exclude
     @JoinColumn(name = "item_id")
     List<Comment> comments = new ArrayList<>();
+    @Version
+    @Column(name = "version")
+    private long version;
 
     @Override
     public boolean equals(Object o) {
@@ -0,0 +1,45 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Следит, чтобы HTTP-запрос укладывался в бюджет SQL-запросов.
+ * Превышение всегда учитывается в метрике, а в журнал с местами вызова попадает только
+ * доля sample-rate запросов: для них места вызова собираются с самого начала запроса.
+ */
+@Slf4j
+public class SqlBudgetGuard {
+    private final int maxStatements;
+    private final double sampleRate;
+    private final MeterRegistry meterRegistry;
+
+    public SqlBudgetGuard(int maxStatements, double sampleRate, MeterRegistry meterRegistry) {
+        this.maxStatements = maxStatements;
+        this.sampleRate = sampleRate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean isSampled() {
+        return sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    public void check(String method, String uri, SqlStatements statements) {
+        if (statements.getCount() <= maxStatements) {
+            return;
+        }
+        Counter.builder("shareit.http.server.sql.budget.exceeded")
+                .description("HTTP-запросы, выполнившие больше SQL-запросов, чем разрешает бюджет")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .increment();
+        if (statements.isCollectingCallSites()) {
+            log.warn("Запрос {} {} выполнил {} SQL-запросов при бюджете {}: {}",
+                    method, uri, statements.getCount(), maxStatements, statements.describeCallSites());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.HibernateQueryMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Метрики SQL сверх автоконфигурации Spring Boot.
+ * Время методов репозиториев (spring.data.repository.invocations), статистику Hibernate (hibernate.*)
+ * и пул Hikari (hikaricp.*) регистрирует сам Spring Boot. Здесь добавляются время каждого запроса
+ * Hibernate (hibernate.query.execution.* с тегом query), число SQL-запросов на HTTP-запрос
+ * и бюджет SQL-запросов на HTTP-запрос.
+ */
+@Configuration
+public class SqlMetricsConfig {
+
+    @Bean
+    public SqlStatementCounter sqlStatementCounter() {
+        return new SqlStatementCounter();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementInspector(SqlStatementCounter sqlStatementCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlStatementCounter);
+    }
+
+    @Bean
+    public SqlBudgetGuard sqlBudgetGuard(@Value("${shareit.sql.budget.max-statements:20}") int maxStatements,
+                                         @Value("${shareit.sql.budget.sample-rate:0.1}") double sampleRate,
+                                         MeterRegistry meterRegistry) {
+        return new SqlBudgetGuard(maxStatements, sampleRate, meterRegistry);
+    }
+
+    @Bean
+    public SqlStatementsFilter sqlStatementsFilter(SqlStatementCounter sqlStatementCounter,
+                                                   SqlBudgetGuard sqlBudgetGuard,
+                                                   MeterRegistry meterRegistry) {
+        return new SqlStatementsFilter(sqlStatementCounter, sqlBudgetGuard, meterRegistry);
+    }
+
+    /**
+     * unwrap(SessionFactory.class) вернул бы прокси Spring, на котором HibernateQueryMetrics
+     * не может подписаться на события загрузки и молча ничего не регистрирует.
+     */
+    @Bean
+    public MeterBinder hibernateQueryMetrics(EntityManagerFactory entityManagerFactory) {
+        return new HibernateQueryMetrics(entityManagerFactory.unwrap(SessionFactoryImplementor.class),
+                "entityManagerFactory", Tags.empty());
+    }
+}
@@ -0,0 +1,67 @@
+package ru.practicum.shareit.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Optional;
+
+/**
+ * Считает SQL-запросы Hibernate в пределах текущего HTTP-запроса.
+ * Учитываются и запросы репозиториев, и ленивые загрузки в маперах и при сериализации.
+ * JdbcTemplate обходит Hibernate и в счетчик не попадает.
+ * Области подсчета вложенные: запросы внутренней области добавляются и во внешнюю,
+ * так тест видит все HTTP-запросы, которые он выполнил.
+ */
+public class SqlStatementCounter implements StatementInspector {
+    private static final String APP_PACKAGE = "ru.practicum.shareit.";
+    private static final String METRICS_PACKAGE = SqlStatementCounter.class.getPackageName() + ".";
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    private final ThreadLocal<SqlStatements> current = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        SqlStatements statements = current.get();
+        if (statements != null) {
+            statements.add(statements.isCollectingCallSites() ? callSite() : null);
+        }
+        return sql;
+    }
+
+    public void start(boolean collectCallSites) {
+        SqlStatements parent = current.get();
+        current.set(new SqlStatements(parent, collectCallSites || (parent != null && parent.isCollectingCallSites())));
+    }
+
+    /**
+     * @return запросы с момента парного start()
+     */
+    public SqlStatements stop() {
+        SqlStatements statements = current.get();
+        if (statements == null) {
+            return new SqlStatements(null, false);
+        }
+        SqlStatements parent = statements.getParent();
+        if (parent == null) {
+            current.remove();
+        } else {
+            parent.addAll(statements);
+            current.set(parent);
+        }
+        return statements;
+    }
+
+    /**
+     * Ближайший к Hibernate метод приложения: для запроса репозитория это место его вызова в сервисе,
+     * для ленивой загрузки — обращение к связи в мапере или сущности.
+     */
+    private static String callSite() {
+        Optional<StackWalker.StackFrame> frame = STACK_WALKER.walk(frames -> frames
+                .filter(f -> f.getClassName().startsWith(APP_PACKAGE)
+                        && !f.getClassName().startsWith(METRICS_PACKAGE)
+                        && !f.getClassName().contains("$$"))
+                .findFirst());
+        return frame.map(f -> f.getClassName().substring(f.getClassName().lastIndexOf('.') + 1)
+                        + "." + f.getMethodName() + ":" + f.getLineNumber())
+                .orElse("вне кода приложения");
+    }
+}
@@ -0,0 +1,54 @@
+package ru.practicum.shareit.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * SQL-запросы одного участка кода: HTTP-запроса или теста.
+ * Места вызова собираются только по требованию, потому что обход стека дороже самого подсчета.
+ */
+public class SqlStatements {
+    private final SqlStatements parent;
+    private final boolean collectCallSites;
+    private final Map<String, Integer> callSites = new LinkedHashMap<>();
+    private int count;
+
+    SqlStatements(SqlStatements parent, boolean collectCallSites) {
+        this.parent = parent;
+        this.collectCallSites = collectCallSites;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public boolean isCollectingCallSites() {
+        return collectCallSites;
+    }
+
+    /**
+     * @return места вызова в порядке первого запроса, например "BookingService.read:290 ×2"
+     */
+    public String describeCallSites() {
+        return callSites.entrySet().stream()
+                .map(callSite -> callSite.getKey() + " ×" + callSite.getValue())
+                .collect(Collectors.joining(", "));
+    }
+
+    SqlStatements getParent() {
+        return parent;
+    }
+
+    void add(String callSite) {
+        count++;
+        if (callSite != null) {
+            callSites.merge(callSite, 1, Integer::sum);
+        }
+    }
+
+    void addAll(SqlStatements nested) {
+        count += nested.count;
+        nested.callSites.forEach((callSite, statements) -> callSites.merge(callSite, statements, Integer::sum));
+    }
+}
@@ -0,0 +1,47 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Записывает число SQL-запросов на HTTP-запрос с теми же тегами method, uri и status, что у http.server.requests.
+ * Фильтр охватывает и сериализацию ответа, поэтому ленивые загрузки в Jackson тоже учитываются.
+ */
+@RequiredArgsConstructor
+public class SqlStatementsFilter extends OncePerRequestFilter {
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final SqlStatementCounter counter;
+    private final SqlBudgetGuard budgetGuard;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        counter.start(budgetGuard.isSampled());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            SqlStatements statements = counter.stop();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern == null ? UNKNOWN_URI : pattern.toString();
+            DistributionSummary.builder("shareit.http.server.sql.statements")
+                    .description("SQL-запросы Hibernate за один HTTP-запрос")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .tag("status", Integer.toString(response.getStatus()))
+                    .register(meterRegistry)
+                    .record(statements.getCount());
+            budgetGuard.check(request.getMethod(), uri, statements);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class CursorPage<T> {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final List<T> items;
+    private final String nextCursor;
+    private final String eTag;
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this(items, nextCursor, null);
+    }
+
+    public CursorPage<T> withETag(String eTag) {
+        return new CursorPage<>(items, nextCursor, eTag);
+    }
+
+    public ResponseEntity<List<T>> toResponseEntity() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        if (eTag != null) {
+            response.eTag(eTag);
+        }
+        return response.body(items);
+    }
+}
@@ -0,0 +1,97 @@
+package ru.practicum.shareit.pagination;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import ru.practicum.shareit.exception.InvalidDataException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class Cursors {
+    public static final int MAX_LIMIT = 1000;
+
+    private static final String KEY_SEPARATOR = ";";
+    private static final String VALUE_SEPARATOR = "=";
+
+    public static Limit toLimit(Integer limit) {
+        if (limit == null) {
+            return Limit.unlimited();
+        }
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new InvalidDataException("Параметр limit должен быть в диапазоне от 1 до " + MAX_LIMIT);
+        }
+        return Limit.of(limit);
+    }
+
+    public static KeysetScrollPosition decode(String after, String... expectedKeys) {
+        if (after == null || after.isEmpty()) {
+            return ScrollPosition.keyset();
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8);
+            for (String pair : decoded.split(KEY_SEPARATOR)) {
+                String[] keyAndValue = pair.split(VALUE_SEPARATOR, 2);
+                keys.put(keyAndValue[0], decodeValue(keyAndValue[1]));
+            }
+        } catch (RuntimeException e) {
+            throw new InvalidDataException("Некорректный курсор " + after);
+        }
+
+        if (!keys.keySet().equals(Set.of(expectedKeys))) {
+            throw new InvalidDataException("Некорректный курсор " + after);
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    public static String encode(Map<String, ?> keys) {
+        String joined = keys.entrySet().stream()
+                .map(entry -> entry.getKey() + VALUE_SEPARATOR + encodeValue(entry.getValue()))
+                .collect(Collectors.joining(KEY_SEPARATOR));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joined.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static <T, R> CursorPage<R> toPage(Window<T> window, Function<T, R> mapper) {
+        List<R> items = window.stream()
+                .map(mapper)
+                .toList();
+        if (!window.hasNext() || window.isEmpty()) {
+            return new CursorPage<>(items, null);
+        }
+        KeysetScrollPosition last = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+        return new CursorPage<>(items, encode(last.getKeys()));
+    }
+
+    private static String encodeValue(Object value) {
+        if (value instanceof LocalDateTime dateTime) {
+            return "T" + dateTime;
+        }
+        if (value instanceof Boolean bool) {
+            return "B" + bool;
+        }
+        if (value instanceof Number number) {
+            return "L" + number.longValue();
+        }
+        throw new IllegalArgumentException("Неподдерживаемый тип ключа курсора " + value.getClass());
+    }
+
+    private static Object decodeValue(String value) {
+        String payload = value.substring(1);
+        return switch (value.charAt(0)) {
+            case 'T' -> LocalDateTime.parse(payload);
+            case 'B' -> Boolean.parseBoolean(payload);
+            case 'L' -> Long.parseLong(payload);
+            default -> throw new IllegalArgumentException("Неподдерживаемый тип ключа курсора " + value);
+        };
+    }
+}
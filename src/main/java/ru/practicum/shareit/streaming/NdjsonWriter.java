@@ -0,0 +1,68 @@
+package ru.practicum.shareit.streaming;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import ru.practicum.shareit.exception.StreamLimitExceededException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+
+/**
+ * Пишет ответ в формате NDJSON: по одному JSON-объекту в строке, сразу в поток ответа.
+ * Объекты не накапливаются ни в списке, ни в буфере сериализации, поэтому память не зависит от размера выборки.
+ * Поток сбрасывается только при заполнении буфера, а не после каждого объекта.
+ * Генератор создается при записи первого объекта: пока ничего не записано, ответ не отправлен,
+ * и ошибку проверки параметров еще можно вернуть обычным статусом.
+ * После срока deadline или maxRows строк запись обрывается {@link StreamLimitExceededException}.
+ */
+public class NdjsonWriter implements Closeable {
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+    private final OutputStream out;
+    private final Instant deadline;
+    private final long maxRows;
+    private JsonGenerator generator;
+    private long count;
+
+    public NdjsonWriter(ObjectMapper objectMapper, OutputStream out, Instant deadline, long maxRows) {
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.out = out;
+        this.deadline = deadline;
+        this.maxRows = maxRows;
+    }
+
+    public void write(Object value) throws IOException {
+        if (count >= maxRows) {
+            throw new StreamLimitExceededException("Ответ превысил " + maxRows + " строк");
+        }
+        if (Instant.now().isAfter(deadline)) {
+            throw new StreamLimitExceededException("Ответ не записан до " + deadline + ", записано строк: " + count);
+        }
+        if (generator == null) {
+            generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .setRootValueSeparator(null);
+        }
+        writer.writeValue(generator, value);
+        generator.writeRaw('\n');
+        count++;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (generator != null) {
+            generator.close();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package ru.practicum.shareit.streaming;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Пределы потоковых ответов. Поток держит соединение пула Hikari и открытую транзакцию, пока клиент читает
+ * ответ, а пул рассчитан на короткие запросы. Без пределов несколько медленных клиентов заняли бы весь пул.
+ * <ul>
+ *     <li>timeout — на весь ответ: после него запись обрывается;</li>
+ *     <li>max-rows — на число строк в ответе.</li>
+ * </ul>
+ * Тот же timeout выставляется транзакции в PostgreSQL: клиент, который перестал читать, блокирует запись
+ * в сокет, и проверку в {@link NdjsonWriter} не достигает. Тогда соединение освободит сама БД.
+ */
+@Component
+public class StreamingLimits {
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration timeout;
+    private final long maxRows;
+
+    public StreamingLimits(JdbcTemplate jdbcTemplate,
+                           @Value("${shareit.streaming.timeout:PT30S}") Duration timeout,
+                           @Value("${shareit.streaming.max-rows:100000}") long maxRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.timeout = timeout;
+        this.maxRows = maxRows;
+    }
+
+    public NdjsonWriter newWriter(ObjectMapper objectMapper, OutputStream out) {
+        return new NdjsonWriter(objectMapper, out, Instant.now().plus(timeout), maxRows);
+    }
+
+    /**
+     * statement_timeout и idle_in_transaction_session_timeout только для текущей транзакции.
+     * Вызывается внутри транзакции потокового чтения до первой выборки.
+     */
+    public void limitTransaction() {
+        String millis = Long.toString(timeout.toMillis());
+        jdbcTemplate.queryForObject("SELECT set_config('statement_timeout', ?, true), " +
+                "set_config('idle_in_transaction_session_timeout', ?, true)", (rs, rowNum) -> null, millis, millis);
+    }
+}
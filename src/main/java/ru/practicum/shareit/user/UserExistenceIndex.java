@@ -0,0 +1,200 @@
+package ru.practicum.shareit.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Локальный набор идентификаторов существующих пользователей для проверки заголовка X-Sharer-User-Id.
+ * Идентификаторы выдаются последовательностью подряд, поэтому набор хранится битовой картой:
+ * миллион пользователей занимает около 125 КБ, а проверка читает одно слово без блокировок и без SQL.
+ * Набор загружается при старте, дополняется при создании и удалении пользователей на этом узле и
+ * перечитывается по расписанию. Промах по карте не окончательный: пользователь мог быть создан на другом узле
+ * после загрузки, поэтому он проверяется запросом к БД. Найденный пользователь добавляется в карту,
+ * ненайденный запоминается на negative-ttl, чтобы повторные запросы с несуществующим id не шли в БД.
+ * Идентификаторы за пределами карты всегда проверяются запросом к БД.
+ */
+@Slf4j
+@Component
+public class UserExistenceIndex {
+    private static final int MAX_WORDS = 1 << 21;
+    private static final long MAX_ID = (long) MAX_WORDS * Long.SIZE - 1;
+    private static final int MAX_KNOWN_MISSING = 100_000;
+
+    private final JdbcTemplate jdbc;
+    private final UserRepository users;
+    private final Counter found;
+    private final Counter missing;
+    private final Counter database;
+    private final Cache<Long, Boolean> knownMissing;
+    private volatile AtomicLongArray words = new AtomicLongArray(1);
+    private List<Long> changesDuringReload;
+
+    public UserExistenceIndex(JdbcTemplate jdbc, UserRepository users, MeterRegistry meterRegistry,
+                              @Value("${shareit.users.existence.negative-ttl:PT5S}") Duration negativeTtl) {
+        this.jdbc = jdbc;
+        this.users = users;
+        this.knownMissing = Caffeine.newBuilder()
+                .expireAfterWrite(negativeTtl)
+                .maximumSize(MAX_KNOWN_MISSING)
+                .build();
+        String name = "shareit.users.existence.checks";
+        String description = "Проверки существования пользователя по локальному набору";
+        this.found = Counter.builder(name).description(description).tag("result", "found").register(meterRegistry);
+        this.missing = Counter.builder(name).description(description).tag("result", "missing").register(meterRegistry);
+        this.database = Counter.builder(name).description(description).tag("result", "database")
+                .register(meterRegistry);
+        Gauge.builder("shareit.users.existence.size", this, UserExistenceIndex::size)
+                .description("Пользователи в локальном наборе")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    public boolean exists(long userId) {
+        if (userId <= 0) {
+            missing.increment();
+            return false;
+        }
+        if (userId > MAX_ID) {
+            database.increment();
+            return users.existsById(userId);
+        }
+        if (contains(words, userId)) {
+            found.increment();
+            return true;
+        }
+        if (knownMissing.getIfPresent(userId) != null) {
+            missing.increment();
+            return false;
+        }
+        database.increment();
+        if (users.existsById(userId)) {
+            change(userId);
+            return true;
+        }
+        knownMissing.put(userId, Boolean.TRUE);
+        missing.increment();
+        return false;
+    }
+
+    public void addAfterCommit(long userId) {
+        afterCommit(() -> change(userId));
+    }
+
+    public void removeAfterCommit(long userId) {
+        afterCommit(() -> change(-userId));
+    }
+
+    /**
+     * Заменяет набор прочитанным из БД. Изменения этого узла, пришедшие во время чтения,
+     * накладываются на новый набор, чтобы не потерять пользователя, созданного после начала выборки.
+     */
+    @Scheduled(fixedDelayString = "${shareit.users.existence.reload-delay:PT1M}",
+            initialDelayString = "${shareit.users.existence.reload-delay:PT1M}")
+    public void reload() {
+        synchronized (this) {
+            changesDuringReload = new ArrayList<>();
+        }
+        AtomicLongArray[] loaded = {new AtomicLongArray(words.length())};
+        jdbc.query("SELECT id FROM users", rs -> {
+            loaded[0] = set(loaded[0], rs.getLong(1), true);
+        });
+        synchronized (this) {
+            for (long change : changesDuringReload) {
+                loaded[0] = set(loaded[0], Math.abs(change), change > 0);
+            }
+            changesDuringReload = null;
+            words = loaded[0];
+        }
+        log.debug("Загружен набор пользователей: {}", size());
+    }
+
+    private synchronized void change(long signedUserId) {
+        long userId = Math.abs(signedUserId);
+        if (signedUserId > 0) {
+            knownMissing.invalidate(userId);
+        }
+        if (userId == 0 || userId > MAX_ID) {
+            return;
+        }
+        words = set(words, userId, signedUserId > 0);
+        if (changesDuringReload != null) {
+            changesDuringReload.add(signedUserId);
+        }
+    }
+
+    private long size() {
+        AtomicLongArray current = words;
+        long size = 0;
+        for (int i = 0; i < current.length(); i++) {
+            size += Long.bitCount(current.get(i));
+        }
+        return size;
+    }
+
+    private static boolean contains(AtomicLongArray words, long id) {
+        int word = (int) (id / Long.SIZE);
+        return word < words.length() && (words.get(word) & (1L << id)) != 0;
+    }
+
+    /**
+     * Выставляет или сбрасывает бит. Если карта мала, возвращает увеличенную копию:
+     * читатели продолжают работать со старой картой до публикации новой.
+     */
+    private static AtomicLongArray set(AtomicLongArray words, long id, boolean present) {
+        if (id <= 0 || id > MAX_ID) {
+            return words;
+        }
+        int word = (int) (id / Long.SIZE);
+        if (word >= words.length()) {
+            if (!present) {
+                return words;
+            }
+            AtomicLongArray grown = new AtomicLongArray((int) Math.min(MAX_WORDS,
+                    Math.max(word + 1L, words.length() * 2L)));
+            for (int i = 0; i < words.length(); i++) {
+                grown.set(i, words.get(i));
+            }
+            words = grown;
+        }
+        long bit = 1L << id;
+        if (present) {
+            words.getAndUpdate(word, value -> value | bit);
+        } else {
+            words.getAndUpdate(word, value -> value & ~bit);
+        }
+        return words;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,23 +1,27 @@
 package ru.practicum.shareit.user;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.user.dto.UserView;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+import java.util.Optional;
 
-    boolean existsByEmail(String email);
+public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsById(long id);
 
-    @Transactional
-    @Modifying
-    @Query("update User set name=?2 where id=?1")
-    void updateName(Long id, String name);
+    Window<User> findAllBy(ScrollPosition position, Limit limit, Sort sort);
 
-    @Transactional
-    @Modifying
-    @Query("update User set email=?2 where id=?1")
-    void updateEmail(Long id, String email);
+    /**
+     * Меняет только переданные поля. Занятый email отклоняют уникальные индексы users.
+     */
+    @Query(value = "UPDATE users SET name = COALESCE(CAST(:name AS VARCHAR), name), " +
+            "email = COALESCE(CAST(:email AS VARCHAR), email), version = version + 1 " +
+            "WHERE id = :id " +
+            "RETURNING id, name, email", nativeQuery = true)
+    Optional<UserView> updateFields(long id, String name, String email);
 }
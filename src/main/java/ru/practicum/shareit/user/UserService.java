@@ -1,16 +1,15 @@
 package ru.practicum.shareit.user;
 
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.user.dto.UserDto;
 
-import java.util.Collection;
-
 public interface UserService {
 
     UserDto create(User user);
 
     UserDto read(long userId);
 
-    Collection<UserDto> readAll();
+    CursorPage<UserDto> readAll(Integer limit, String after);
 
     UserDto update(long userId, User updUser);
 
@@ -1,15 +1,26 @@
 package ru.practicum.shareit.user;
 
+import jakarta.persistence.EntityManagerFactory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.practicum.shareit.exception.DuplicateEmailException;
 import ru.practicum.shareit.exception.InvalidDataException;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.Cursors;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
+import ru.practicum.shareit.user.dto.UserView;
 
-import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -18,6 +29,10 @@ import java.util.regex.Pattern;
 @Repository
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
+    private final UserExistenceIndex userExistence;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private static final Set<String> EMAIL_CONSTRAINTS = Set.of("qu_user_email", "ux_users_email_lower");
 
     private static final Pattern VALID_EMAIL_ADDRESS_REGEX =
             Pattern.compile("^[A-Z0-9._%+-]+@[A-Z0-9.-]+\\.[A-Z]{2,6}$", Pattern.CASE_INSENSITIVE);
@@ -27,17 +42,19 @@ public class UserServiceImpl implements UserService {
     public UserDto create(User user) {
         log.info("Обновление пользователя  {}", user);
 
-        if (userRepository.existsByEmail(user.getEmail())) {
-            log.error("Email " + user.getEmail() + " уже занят");
-            throw new DuplicateEmailException("Email " + user.getEmail() + " уже занят");
+        UserDto userDto;
+        try {
+            userDto = UserMapper.mapToUserDto(userRepository.saveAndFlush(user));
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateEmailOr(e, user.getEmail());
         }
-
-        UserDto userDto = UserMapper.mapToUserDto(userRepository.save(user));
+        userExistence.addAfterCommit(userDto.getId());
         log.info("Создан пользователь  {}", user);
         return userDto;
 
     }
 
+    @Transactional(readOnly = true)
     @Override
     public UserDto read(long userId) {
         log.info("Чтение пользователя c id =  {}", userId);
@@ -48,47 +65,44 @@ public class UserServiceImpl implements UserService {
         return userDto;
     }
 
+    @Transactional(readOnly = true)
     @Override
-    public Collection<UserDto> readAll() {
+    public CursorPage<UserDto> readAll(Integer limit, String after) {
         log.info("Чтение всех пользователей");
-        Collection<UserDto> allUsers = userRepository.findAll().stream()
-                .map(UserMapper::mapToUserDto)
-                .toList();
+        CursorPage<UserDto> allUsers = Cursors.toPage(userRepository.findAllBy(Cursors.decode(after, "id"),
+                        Cursors.toLimit(limit),
+                        Sort.by("id")),
+                UserMapper::mapToUserDto);
         log.info("Прочитаны пользователи {}", allUsers);
         return allUsers;
     }
 
+    /**
+     * Одно UPDATE ... RETURNING: меняет только переданные поля и возвращает пользователя целиком.
+     */
     @Transactional
     @Override
     public UserDto update(long userId, User updUser) {
-        updUser.setId(userId);
-
-        UserDto userDto = UserMapper.mapToUserDto(updUser);
-
         log.info("Обновление пользователя id = {} {}", userId, updUser);
-        if (updUser.getEmail() != null) {
-            if (updUser.getEmail().isEmpty()
-                    || !isEmailValid(updUser.getEmail())) {
-                log.error("Введен невалидный email");
-                throw new InvalidDataException("Введен невалидный email = " + updUser.getEmail());
-            }
-            if (userRepository.existsByEmail(updUser.getEmail())) {
-                log.error("Email " + updUser.getEmail() + " уже занят");
-                throw new DuplicateEmailException("Email " + updUser.getEmail() + " уже занят");
-            }
-        } else {
-            userRepository.updateName(userId, updUser.getName());
-            log.info("Обновлен пользователь {}", userDto);
-            return userDto;
+        if (updUser.getEmail() != null
+                && (updUser.getEmail().isEmpty() || !isEmailValid(updUser.getEmail()))) {
+            log.error("Введен невалидный email");
+            throw new InvalidDataException("Введен невалидный email = " + updUser.getEmail());
         }
 
-        if (updUser.getName() == null && updUser.getEmail() != null) {
-            userRepository.updateEmail(userId, updUser.getEmail());
-            log.info("Обновлен пользователь {}", userDto);
-            return userDto;
+        Optional<UserView> updated;
+        try {
+            updated = userRepository.updateFields(userId, updUser.getName(), updUser.getEmail());
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateEmailOr(e, updUser.getEmail());
+        }
+        if (updated.isEmpty()) {
+            log.error("Пользователь с id = {} не найден", userId);
+            throw new NotFoundException("Пользователь с id = " + userId + " не найден");
         }
+        evictAfterCommit(userId);
 
-        userDto = UserMapper.mapToUserDto(userRepository.save(updUser));
+        UserDto userDto = UserMapper.mapToUserDto(updated.get());
         log.info("Обновлен пользователь {}", userDto);
         return userDto;
     }
@@ -97,11 +111,41 @@ public class UserServiceImpl implements UserService {
     public void delete(long userId) {
         log.info("Удаление пользователя с id = {}", userId);
         userRepository.deleteById(userId);
+        userExistence.removeAfterCommit(userId);
         log.info("Удален пользователь с id ={}", userId);
 
     }
 
-    private boolean isEmailValid(String email) {
+    /**
+     * Занятость email проверяют уникальные индексы: отдельная проверка перед записью
+     * стоила бы еще одного запроса и все равно не защитила бы от одновременной регистрации.
+     */
+    private RuntimeException duplicateEmailOr(DataIntegrityViolationException e, String email) {
+        if (e.getCause() instanceof ConstraintViolationException violation
+                && EMAIL_CONSTRAINTS.contains(violation.getConstraintName())) {
+            log.error("Email " + email + " уже занят");
+            return new DuplicateEmailException("Email " + email + " уже занят");
+        }
+        return e;
+    }
+
+    /**
+     * UPDATE в обход Hibernate не обновляет кэш второго уровня, поэтому запись пользователя из него удаляется.
+     */
+    private void evictAfterCommit(long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            entityManagerFactory.getCache().evict(User.class, userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entityManagerFactory.getCache().evict(User.class, userId);
+            }
+        });
+    }
+
+    static boolean isEmailValid(String email) {
         Matcher matcher = VALID_EMAIL_ADDRESS_REGEX.matcher(email);
         return matcher.matches();
     }
@@ -11,6 +11,14 @@ public class UserMapper {
                 .build();
     }
 
+    public static UserDto mapToUserDto(UserView user) {
+        return UserDto.builder()
+                .id(user.getId())
+                .name(user.getName())
+                .email(user.getEmail())
+                .build();
+    }
+
     public static User mapToUser(UserDto userDto) {
         User user = new User();
         user.setId(userDto.getId());
@@ -1,3 +1,6 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
 CREATE TABLE IF NOT EXISTS users (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
   name VARCHAR(255) NOT NULL,
@@ -6,6 +9,28 @@ CREATE TABLE IF NOT EXISTS users (
   CONSTRAINT qu_user_email UNIQUE (email)
 );
 
+ALTER TABLE users ALTER COLUMN id SET INCREMENT BY 50;
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+-- В базах прежних версий email уникален только с учетом регистра. Если там есть адреса, отличающиеся
+-- лишь регистром, индекс не создастся, поэтому запуск останавливается с перечнем таких адресов
+DO '
+DECLARE
+  duplicates TEXT;
+BEGIN
+  IF to_regclass(''ux_users_email_lower'') IS NULL THEN
+    SELECT string_agg(email, '', '') INTO duplicates
+    FROM (SELECT lower(email) AS email FROM users GROUP BY 1 HAVING count(*) > 1 ORDER BY 1 LIMIT 20) d;
+    IF duplicates IS NOT NULL THEN
+      RAISE EXCEPTION ''users содержит email, отличающиеся только регистром, индекс ux_users_email_lower не создан: %'', duplicates
+        USING HINT = ''Переименуйте или объедините лишние учетные записи (README, «Уникальность email без учета регистра») и перезапустите приложение'';
+    END IF;
+  END IF;
+END';
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_users_email_lower ON users (lower(email));
+
 CREATE TABLE IF NOT EXISTS requests (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
   description VARCHAR(512) NOT NULL,
@@ -26,19 +51,107 @@ CREATE TABLE IF NOT EXISTS items (
   CONSTRAINT pk_item PRIMARY KEY (id)
 );
 
+ALTER TABLE items ALTER COLUMN id SET INCREMENT BY 50;
+
+-- Версия меняется при каждом изменении вещи, из нее строится ETag ответов с вещью
+ALTER TABLE items ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+CREATE INDEX IF NOT EXISTS ix_items_owner_id ON items (owner_id, id);
+
+CREATE INDEX IF NOT EXISTS ix_items_available_name_trgm ON items
+  USING gin (name gin_trgm_ops) WHERE is_available = true;
+
+CREATE INDEX IF NOT EXISTS ix_items_available_description_trgm ON items
+  USING gin (description gin_trgm_ops) WHERE is_available = true;
+
 CREATE TABLE IF NOT EXISTS bookings(
   id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
   start_date TIMESTAMP WITHOUT TIME ZONE,
-  end_date TIMESTAMP WITHOUT TIME ZONE,
+  end_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
   item_id BIGINT,
   booker_id BIGINT,
   status VARCHAR(16),
   requestor_id BIGINT,
-  CONSTRAINT booking_id PRIMARY KEY (id),
+  version BIGINT DEFAULT 0 NOT NULL,
+  CONSTRAINT booking_id PRIMARY KEY (id, end_date),
   CONSTRAINT fk_bookings_items FOREIGN KEY(item_id) REFERENCES items(id),
   CONSTRAINT fk_bookings_users_booker FOREIGN KEY(booker_id) REFERENCES users(id),
   CONSTRAINT fk_bookings_users_requestor FOREIGN KEY(requestor_id) REFERENCES users(id)
-);
+) PARTITION BY RANGE (end_date);
+
+-- Секции по месяцам, архив и секцию по умолчанию создает BookingPartitionManager
+
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE bookings ALTER COLUMN id SET INCREMENT BY 50;
+
+CREATE INDEX IF NOT EXISTS ix_bookings_item_end ON bookings (item_id, end_date);
+
+CREATE INDEX IF NOT EXISTS ix_bookings_item_start ON bookings (item_id, start_date);
+
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_end ON bookings (booker_id, end_date, id);
+
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_status_end ON bookings (booker_id, status, end_date, id);
+
+CREATE INDEX IF NOT EXISTS ix_bookings_waiting_start ON bookings (start_date) WHERE status = 'WAITING';
+
+CREATE INDEX IF NOT EXISTS ix_bookings_item_period ON bookings
+  USING gist (item_id, tsrange(start_date, end_date)) WHERE status IN ('WAITING', 'APPROVED');
+
+-- Непартиционированная таблица из прежних версий получает ограничение на пересечение отдельно:
+-- CREATE TABLE IF NOT EXISTS для существующей таблицы ничего не меняет
+DO '
+BEGIN
+  IF EXISTS (SELECT 1 FROM pg_class WHERE oid = ''bookings''::regclass AND relkind = ''r'')
+      AND NOT EXISTS (SELECT 1 FROM pg_constraint
+                      WHERE conrelid = ''bookings''::regclass AND conname = ''ex_bookings_item_period'') THEN
+    IF EXISTS (SELECT 1 FROM bookings a JOIN bookings b ON b.item_id = a.item_id AND b.id > a.id
+               WHERE a.status IN (''WAITING'', ''APPROVED'') AND b.status IN (''WAITING'', ''APPROVED'')
+                 AND tsrange(a.start_date, a.end_date) && tsrange(b.start_date, b.end_date)) THEN
+      RAISE EXCEPTION ''bookings содержит пересекающиеся бронирования одной вещи, ограничение ex_bookings_item_period не создано''
+        USING HINT = ''Отклоните лишние бронирования (status = REJECTED) и перезапустите приложение'';
+    END IF;
+    ALTER TABLE bookings ADD CONSTRAINT ex_bookings_item_period
+      EXCLUDE USING gist (item_id WITH =, tsrange(start_date, end_date) WITH &&)
+      WHERE (status IN (''WAITING'', ''APPROVED''));
+  END IF;
+END';
+
+-- Секционированная таблица в PostgreSQL 16 не поддерживает исключающие ограничения, поэтому пересечения
+-- проверяет триггер. Блокировка строки вещи выстраивает в очередь бронирования одной вещи, так что две
+-- одновременные вставки не пропустят друг друга. Ошибка совпадает с ошибкой ограничения (23P01).
+CREATE OR REPLACE FUNCTION bookings_check_overlap() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+  IF COALESCE(NEW.status, '''') NOT IN (''WAITING'', ''APPROVED'') THEN
+    RETURN NEW;
+  END IF;
+  IF TG_OP = ''UPDATE'' AND COALESCE(OLD.status, '''') IN (''WAITING'', ''APPROVED'')
+      AND OLD.item_id IS NOT DISTINCT FROM NEW.item_id
+      AND OLD.start_date IS NOT DISTINCT FROM NEW.start_date
+      AND OLD.end_date = NEW.end_date THEN
+    RETURN NEW;
+  END IF;
+  PERFORM 1 FROM items WHERE id = NEW.item_id FOR NO KEY UPDATE;
+  IF EXISTS (SELECT 1 FROM bookings b
+             WHERE b.item_id = NEW.item_id
+               AND b.id <> NEW.id
+               AND b.status IN (''WAITING'', ''APPROVED'')
+               AND b.end_date > NEW.start_date
+               AND tsrange(b.start_date, b.end_date) && tsrange(NEW.start_date, NEW.end_date)) THEN
+    RAISE EXCEPTION ''Вещь % уже забронирована на период % - %'', NEW.item_id, NEW.start_date, NEW.end_date
+      USING ERRCODE = ''exclusion_violation'', CONSTRAINT = ''ex_bookings_item_period'';
+  END IF;
+  RETURN NEW;
+END';
+
+DO '
+BEGIN
+  IF EXISTS (SELECT 1 FROM pg_class WHERE oid = ''bookings''::regclass AND relkind = ''p'') THEN
+    CREATE OR REPLACE TRIGGER trg_bookings_no_overlap
+      BEFORE INSERT OR UPDATE OF item_id, start_date, end_date, status ON bookings
+      FOR EACH ROW EXECUTE FUNCTION bookings_check_overlap();
+  END IF;
+END';
 
 CREATE TABLE IF NOT EXISTS comments (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
@@ -49,4 +162,34 @@ CREATE TABLE IF NOT EXISTS comments (
   CONSTRAINT pk_comments PRIMARY KEY (id),
   CONSTRAINT fk_comments_users FOREIGN KEY(author_id) REFERENCES users(id),
   CONSTRAINT fk_comments_items FOREIGN KEY(item_id) REFERENCES items(id)
-);
\ No newline at end of file
+);
+
+ALTER TABLE comments ALTER COLUMN id SET INCREMENT BY 50;
+
+CREATE INDEX IF NOT EXISTS ix_comments_item_id ON comments (item_id);
+
+CREATE TABLE IF NOT EXISTS item_booking_summaries (
+  item_id BIGINT NOT NULL,
+  last_booking TIMESTAMP WITHOUT TIME ZONE,
+  next_booking TIMESTAMP WITHOUT TIME ZONE,
+  total_bookings BIGINT DEFAULT 0 NOT NULL,
+  current_booker_id BIGINT,
+  valid_until TIMESTAMP WITHOUT TIME ZONE,
+  CONSTRAINT pk_item_booking_summaries PRIMARY KEY (item_id),
+  CONSTRAINT fk_item_booking_summaries_items FOREIGN KEY(item_id) REFERENCES items(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS ix_item_booking_summaries_valid_until ON item_booking_summaries (valid_until)
+  WHERE valid_until IS NOT NULL;
+
+INSERT INTO item_booking_summaries (item_id, last_booking, next_booking, total_bookings, current_booker_id, valid_until)
+SELECT b.item_id,
+  MAX(b.end_date) FILTER (WHERE b.end_date <= LOCALTIMESTAMP),
+  MIN(b.start_date) FILTER (WHERE b.start_date >= LOCALTIMESTAMP),
+  COUNT(*),
+  MAX(b.booker_id) FILTER (WHERE b.status = 'APPROVED' AND b.start_date <= LOCALTIMESTAMP AND b.end_date > LOCALTIMESTAMP),
+  LEAST(MIN(b.start_date) FILTER (WHERE b.start_date >= LOCALTIMESTAMP),
+        MIN(b.end_date) FILTER (WHERE b.end_date > LOCALTIMESTAMP))
+FROM bookings b
+WHERE NOT EXISTS (SELECT 1 FROM item_booking_summaries)
+GROUP BY b.item_id;
@@ -0,0 +1,51 @@
+package ru.practicum.shareit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Подготовка данных через API в тестах с MockMvc. Тесты работают с общей базой,
+ * поэтому email пользователей уникальны для каждого запуска.
+ */
+public class ApiFixture {
+    public static final String SHARER_HEADER = "X-Sharer-User-Id";
+
+    private final MockMvc mvc;
+    private final ObjectMapper mapper;
+
+    public ApiFixture(MockMvc mvc, ObjectMapper mapper) {
+        this.mvc = mvc;
+        this.mapper = mapper;
+    }
+
+    public long createUser(String name) throws Exception {
+        return send(post("/users"), null, Map.of("name", name, "email", name + UUID.randomUUID() + "@example.com"))
+                .get("id").asLong();
+    }
+
+    /**
+     * Выполняет запрос от имени sharerId с телом body в JSON и ждет ответа 200.
+     */
+    public JsonNode send(MockHttpServletRequestBuilder request, Long sharerId, Object body) throws Exception {
+        if (sharerId != null) {
+            request.header(SHARER_HEADER, sharerId);
+        }
+        if (body != null) {
+            request.contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(body));
+        }
+        String response = mvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        return mapper.readTree(response);
+    }
+}
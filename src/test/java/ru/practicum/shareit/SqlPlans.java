@@ -0,0 +1,12 @@
+package ru.practicum.shareit;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Планы запросов PostgreSQL для проверок выбора индексов и отсечения секций.
+ */
+public class SqlPlans {
+    public static String explain(JdbcTemplate jdbc, String sql, Object... args) {
+        return String.join("\n", jdbc.queryForList("EXPLAIN (COSTS OFF) " + sql, String.class, args));
+    }
+}
@@ -0,0 +1,108 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Создание секций и перенос их в архив. Менеджер работает с отдельной схемой со своей таблицей bookings:
+ * секции общей таблицы используют остальные тесты, и переносить их в архив нельзя.
+ */
+@SpringBootTest
+class BookingPartitionManagerTest {
+    private static final String SCHEMA = "booking_partitions_test";
+    private static final LocalDate HOT_START = LocalDate.of(2030, 1, 1);
+    private static final LocalDate HORIZON = LocalDate.of(2030, 3, 1);
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private JdbcTemplate publicJdbc;
+
+    private JdbcTemplate jdbc;
+    private TransactionTemplate transaction;
+    private BookingPartitionManager partitions;
+
+    @BeforeEach
+    void createBookingsTable() {
+        dropSchema();
+        publicJdbc.execute("CREATE SCHEMA " + SCHEMA);
+        publicJdbc.execute("CREATE TABLE " + SCHEMA + ".bookings (LIKE public.bookings INCLUDING DEFAULTS) " +
+                "PARTITION BY RANGE (end_date)");
+
+        Properties connectionProperties = new Properties();
+        connectionProperties.setProperty("currentSchema", SCHEMA);
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+        dataSource.setConnectionProperties(connectionProperties);
+        jdbc = new JdbcTemplate(dataSource);
+        transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        partitions = new BookingPartitionManager(jdbc);
+
+        assertThat(inTransaction(() -> partitions.createPartitions(HOT_START, HORIZON))).isEqualTo(4);
+    }
+
+    @AfterEach
+    void dropSchema() {
+        publicJdbc.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+    }
+
+    @Test
+    void bookingPastHorizonMovesFromDefaultToItsMonth() {
+        insertBooking(1L, LocalDate.of(2030, 3, 15));
+        assertThat(partitionOf(1L)).isEqualTo("bookings_default");
+
+        assertThat(inTransaction(() -> partitions.createPartitions(HOT_START, HORIZON.plusMonths(1)))).isEqualTo(1);
+
+        assertThat(partitionOf(1L)).isEqualTo("bookings_2030_03");
+        assertThat(inTransaction(() -> partitions.createPartitions(HOT_START, HORIZON.plusMonths(1)))).isZero();
+    }
+
+    @Test
+    void archivedMonthStaysReadableThroughBookings() {
+        insertBooking(1L, LocalDate.of(2030, 1, 15));
+        insertBooking(2L, LocalDate.of(2030, 2, 15));
+
+        assertThat(inTransaction(() -> partitions.archivePartitions(HOT_START.plusMonths(1)))).isEqualTo(1);
+
+        assertThat(parentOf("bookings_2030_01")).isEqualTo("bookings_archive");
+        assertThat(parentOf("bookings_2030_02")).isEqualTo("bookings");
+        assertThat(jdbc.queryForList("SELECT id FROM bookings WHERE end_date < ? ORDER BY id", Long.class,
+                Timestamp.valueOf(HORIZON.atStartOfDay()))).containsExactly(1L, 2L);
+        assertThat(partitionOf(1L)).isEqualTo("bookings_2030_01");
+        assertThat(inTransaction(() -> partitions.archivePartitions(HOT_START.plusMonths(1)))).isZero();
+    }
+
+    private int inTransaction(Supplier<Integer> call) {
+        return transaction.execute(status -> call.get());
+    }
+
+    private void insertBooking(long id, LocalDate end) {
+        jdbc.update("INSERT INTO bookings (id, start_date, end_date, status) VALUES (?, ?, ?, 'WAITING')", id,
+                Timestamp.valueOf(end.minusDays(1).atStartOfDay()), Timestamp.valueOf(end.atStartOfDay()));
+    }
+
+    private String partitionOf(long id) {
+        return jdbc.queryForObject("SELECT tableoid::regclass::text FROM bookings WHERE id = ?", String.class, id);
+    }
+
+    private String parentOf(String partition) {
+        return jdbc.queryForObject("SELECT inhparent::regclass::text FROM pg_inherits " +
+                "WHERE inhrelid = ?::regclass", String.class, partition);
+    }
+}
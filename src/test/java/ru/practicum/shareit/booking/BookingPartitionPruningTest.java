@@ -0,0 +1,153 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.metrics.SqlStatementCounter;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserService;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.practicum.shareit.SqlPlans.explain;
+
+/**
+ * Отсечение секций bookings в запросах, которые Hibernate строит для списков бронирований.
+ * SQL перехватывается при вызове BookingService, поэтому тест проверяет и выбор метода репозитория,
+ * и условия, которые Spring Data выводит из его имени.
+ */
+@SpringBootTest
+class BookingPartitionPruningTest {
+    private static final DateTimeFormatter MONTH_PARTITION = DateTimeFormatter.ofPattern("'bookings_'yyyy_MM");
+    private static final Pattern PARAMETER = Pattern.compile("(\\w+)\\s*(?:[<>=]+|rows only|first)?\\s*\\?");
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CapturingSqlStatementCounter capturedSql;
+
+    private final Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+    private final String currentMonth = MONTH_PARTITION.format(LocalDate.now());
+    private final String previousMonth = MONTH_PARTITION.format(LocalDate.now().minusMonths(1));
+    private long userId;
+
+    @BeforeEach
+    void createUser() {
+        User user = new User();
+        user.setName("partitions");
+        user.setEmail("partitions" + UUID.randomUUID() + "@example.com");
+        userId = userService.create(user).getId();
+    }
+
+    @Test
+    void currentBookingsOfBookerSkipPastPartitions() {
+        String plan = explainBookingsQuery(() -> bookingService.readAllByBookerId(userId, BookingsState.CURRENT, 10, null));
+
+        assertThat(plan).contains(currentMonth)
+                .doesNotContain(previousMonth)
+                .doesNotContain("bookings_archive");
+    }
+
+    @Test
+    void futureBookingsOfBookerSkipPastPartitions() {
+        String plan = explainBookingsQuery(() -> bookingService.readAllByBookerId(userId, BookingsState.FUTURE, 10, null));
+
+        assertThat(plan).contains(currentMonth)
+                .doesNotContain(previousMonth)
+                .doesNotContain("bookings_archive");
+    }
+
+    @Test
+    void futureBookingsOfOwnerSkipPastPartitions() {
+        String plan = explainBookingsQuery(() -> bookingService.readAllByOwnerId(userId, BookingsState.FUTURE, 10, null));
+
+        assertThat(plan).contains(currentMonth)
+                .doesNotContain(previousMonth)
+                .doesNotContain("bookings_archive");
+    }
+
+    @Test
+    void pastBookingsReadArchive() {
+        String plan = explainBookingsQuery(() -> bookingService.readAllByBookerId(userId, BookingsState.PAST, 10, null));
+
+        assertThat(plan).contains("bookings_archive");
+    }
+
+    /**
+     * План единственного запроса к bookings, выполненного при вызове. Параметры подставляются по колонке:
+     * идентификаторы — userId, даты — now, размер страницы — 11.
+     */
+    private String explainBookingsQuery(Runnable call) {
+        capturedSql.clear();
+        call.run();
+        List<String> bookingQueries = capturedSql.getStatements().stream()
+                .filter(sql -> sql.contains("public.bookings "))
+                .toList();
+        assertThat(bookingQueries).hasSize(1);
+        String sql = bookingQueries.getFirst();
+
+        List<Object> values = new ArrayList<>();
+        Matcher parameter = PARAMETER.matcher(sql);
+        while (parameter.find()) {
+            String column = parameter.group(1);
+            if (column.endsWith("_id")) {
+                values.add(userId);
+            } else if (column.endsWith("_date")) {
+                values.add(now);
+            } else {
+                values.add(11);
+            }
+        }
+        assertThat(values).hasSize((int) sql.chars().filter(c -> c == '?').count());
+        return explain(jdbc, sql, values.toArray());
+    }
+
+    static class CapturingSqlStatementCounter extends SqlStatementCounter {
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return super.inspect(sql);
+        }
+
+        List<String> getStatements() {
+            return statements;
+        }
+
+        void clear() {
+            statements.clear();
+        }
+    }
+
+    @TestConfiguration
+    static class CapturedSqlConfig {
+        @Bean
+        @Primary
+        CapturingSqlStatementCounter capturingSqlStatementCounter() {
+            return new CapturingSqlStatementCounter();
+        }
+    }
+}
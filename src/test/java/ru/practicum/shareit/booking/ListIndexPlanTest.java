@@ -0,0 +1,80 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.practicum.shareit.SqlPlans.explain;
+
+/**
+ * Проверяет, что страницы списков читаются по своим индексам. Последовательное сканирование
+ * выключено на время транзакции теста: в небольшой тестовой базе оно иначе дешевле любого индекса.
+ * Индексы секций bookings получают имена автоматически, поэтому ищется любой индекс из дерева
+ * секционированного индекса.
+ */
+@SpringBootTest
+@Transactional
+class ListIndexPlanTest {
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+    @BeforeEach
+    void disableSeqScan() {
+        jdbc.execute("SET LOCAL enable_seqscan = off");
+    }
+
+    @Test
+    void itemsOfOwnerUseOwnerIndex() {
+        String plan = explain(jdbc, "SELECT i.* FROM items i " +
+                "WHERE i.owner_id = ? AND i.id > ? " +
+                "ORDER BY i.id LIMIT 21", 1L, 0L);
+
+        assertThat(plan).contains("ix_items_owner_id");
+    }
+
+    @Test
+    void bookingsOfOwnerFindItemsByOwnerIndex() {
+        String plan = explain(jdbc, "SELECT b.* FROM bookings b " +
+                "JOIN items i ON i.id = b.item_id " +
+                "WHERE i.owner_id = ? " +
+                "ORDER BY b.end_date DESC, b.id DESC LIMIT 21", 1L);
+
+        assertThat(plan).contains("ix_items_owner_id");
+    }
+
+    @Test
+    void waitingBookingsOfBookerUseStatusIndex() {
+        String plan = explain(jdbc, "SELECT b.* FROM bookings b " +
+                "WHERE b.booker_id = ? AND b.status = 'WAITING' " +
+                "ORDER BY b.end_date DESC, b.id DESC LIMIT 21", 1L);
+
+        assertThat(indexesOf("ix_bookings_booker_status_end")).anyMatch(plan::contains);
+    }
+
+    @Test
+    void pastBookingsOfBookerUseEndIndex() {
+        String plan = explain(jdbc, "SELECT b.* FROM bookings b " +
+                "WHERE b.booker_id = ? AND b.end_date < ? " +
+                "ORDER BY b.end_date DESC, b.id DESC LIMIT 21", 1L, now);
+
+        assertThat(indexesOf("ix_bookings_booker_end")).anyMatch(plan::contains);
+    }
+
+    private List<String> indexesOf(String parentIndex) {
+        return jdbc.queryForList("WITH RECURSIVE tree AS (" +
+                "SELECT ?::regclass::oid AS oid " +
+                "UNION ALL " +
+                "SELECT i.inhrelid FROM pg_inherits i JOIN tree t ON i.inhparent = t.oid) " +
+                "SELECT c.relname FROM tree t JOIN pg_class c ON c.oid = t.oid", String.class, parentIndex);
+    }
+}
@@ -0,0 +1,67 @@
+package ru.practicum.shareit.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadRoutingTest {
+    private final ReadRouting routing = new ReadRouting(Duration.ofSeconds(5), Duration.ofSeconds(10),
+            new SimpleMeterRegistry());
+
+    @Test
+    void readsPrimaryWhileLagUnknown() {
+        assertThat(routing.currentReadTarget()).isEqualTo(ReadTarget.PRIMARY);
+
+        routing.setReplicaLag(Duration.ZERO);
+        routing.setReplicaLag(null);
+
+        assertThat(routing.currentReadTarget()).isEqualTo(ReadTarget.PRIMARY);
+    }
+
+    @Test
+    void readsPrimaryWhenLagAboveMax() {
+        routing.setReplicaLag(Duration.ofSeconds(5));
+        assertThat(routing.currentReadTarget()).isEqualTo(ReadTarget.REPLICA);
+
+        routing.setReplicaLag(Duration.ofMillis(5001));
+        assertThat(routing.currentReadTarget()).isEqualTo(ReadTarget.PRIMARY);
+    }
+
+    @Test
+    void readsPrimaryWhenRequiredUntilCleared() {
+        routing.setReplicaLag(Duration.ZERO);
+
+        routing.requirePrimary();
+        assertThat(routing.currentReadTarget()).isEqualTo(ReadTarget.PRIMARY);
+
+        routing.clear();
+        assertThat(routing.currentReadTarget()).isEqualTo(ReadTarget.REPLICA);
+    }
+
+    @Test
+    void pinnedTargetIgnoresLagChanges() {
+        routing.setReplicaLag(Duration.ZERO);
+        assertThat(routing.pinReadTarget()).isEqualTo(ReadTarget.REPLICA);
+
+        routing.setReplicaLag(null);
+        routing.requirePrimary();
+        assertThat(routing.currentReadTarget()).isEqualTo(ReadTarget.REPLICA);
+
+        routing.unpin();
+        assertThat(routing.currentReadTarget()).isEqualTo(ReadTarget.PRIMARY);
+    }
+
+    @Test
+    void pinnedPrimaryStaysAfterReplicaCatchesUp() {
+        assertThat(routing.pinReadTarget()).isEqualTo(ReadTarget.PRIMARY);
+
+        routing.setReplicaLag(Duration.ZERO);
+        assertThat(routing.currentReadTarget()).isEqualTo(ReadTarget.PRIMARY);
+
+        routing.unpin();
+        assertThat(routing.currentReadTarget()).isEqualTo(ReadTarget.REPLICA);
+    }
+}
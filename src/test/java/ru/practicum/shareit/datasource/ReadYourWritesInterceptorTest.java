@@ -0,0 +1,83 @@
+package ru.practicum.shareit.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadYourWritesInterceptorTest {
+    private static final long SHARER_ID = 1;
+
+    private final ReadRouting routing = new ReadRouting(Duration.ofSeconds(5), Duration.ofSeconds(10),
+            new SimpleMeterRegistry());
+    private final ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor(routing);
+
+    @BeforeEach
+    void replicaUpToDate() {
+        routing.setReplicaLag(Duration.ZERO);
+    }
+
+    @Test
+    void readRequestReadsReplica() {
+        MockHttpServletRequest request = request("GET");
+
+        interceptor.preHandle(request, new MockHttpServletResponse(), null);
+
+        assertThat(routing.currentReadTarget()).isEqualTo(ReadTarget.REPLICA);
+    }
+
+    @Test
+    void writeRequestReadsPrimaryUntilCompletion() {
+        MockHttpServletRequest request = request("PATCH");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        interceptor.preHandle(request, response, null);
+        assertThat(routing.currentReadTarget()).isEqualTo(ReadTarget.PRIMARY);
+
+        interceptor.afterCompletion(request, response, null, null);
+        assertThat(routing.currentReadTarget()).isEqualTo(ReadTarget.REPLICA);
+    }
+
+    @Test
+    void successfulWriteMarksWriter() {
+        complete(request("POST"), 201);
+
+        assertThat(routing.isRecentWriter(SHARER_ID)).isTrue();
+
+        interceptor.preHandle(request("GET"), new MockHttpServletResponse(), null);
+        assertThat(routing.currentReadTarget()).isEqualTo(ReadTarget.PRIMARY);
+    }
+
+    @Test
+    void failedWriteDoesNotMarkWriter() {
+        complete(request("POST"), 400);
+        complete(request("PATCH"), 409);
+
+        assertThat(routing.isRecentWriter(SHARER_ID)).isFalse();
+    }
+
+    @Test
+    void readDoesNotMarkWriter() {
+        complete(request("GET"), 200);
+
+        assertThat(routing.isRecentWriter(SHARER_ID)).isFalse();
+    }
+
+    private void complete(MockHttpServletRequest request, int status) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, null);
+        response.setStatus(status);
+        interceptor.afterCompletion(request, response, null, null);
+    }
+
+    private static MockHttpServletRequest request(String method) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/items");
+        request.addHeader("X-Sharer-User-Id", SHARER_ID);
+        return request;
+    }
+}
@@ -0,0 +1,130 @@
+package ru.practicum.shareit.datasource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.ApiFixture;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Реплика — та же БД, но пулы различаются по application_name соединений.
+ * Отставание задает тест: проверка отставания выполняется только при запуске.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.data-source-properties.ApplicationName=primary",
+        "shareit.datasource.replica.jdbc-url=${spring.datasource.url}",
+        "shareit.datasource.replica.username=${spring.datasource.username}",
+        "shareit.datasource.replica.password=${spring.datasource.password}",
+        "shareit.datasource.replica.data-source-properties.ApplicationName=replica",
+        "shareit.datasource.replica.sticky-window=PT2S",
+        "shareit.datasource.replica.lag-check-delay=PT1H"
+})
+@AutoConfigureMockMvc
+class ReplicaRoutingTest {
+    private static final Duration STICKY_WINDOW = Duration.ofSeconds(2);
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private ReadRouting routing;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ApiFixture api;
+    private long ownerId;
+    private long readerId;
+    private long itemId;
+
+    @BeforeEach
+    void createItem() throws Exception {
+        api = new ApiFixture(mvc, mapper);
+        ownerId = api.createUser("owner");
+        readerId = api.createUser("reader");
+        itemId = api.send(post("/items"), ownerId,
+                Map.of("name", "Дрель", "description", "Ударная дрель", "available", true)).get("id").asLong();
+        routing.setReplicaLag(Duration.ZERO);
+    }
+
+    @Test
+    void readOnlyTransactionUsesReplicaPool() {
+        assertThat(applicationName(true)).isEqualTo("replica");
+        assertThat(applicationName(false)).isEqualTo("primary");
+
+        routing.setReplicaLag(Duration.ofMinutes(1));
+        assertThat(applicationName(true)).isEqualTo("primary");
+    }
+
+    @Test
+    void writerReadsPrimaryForStickyWindow() throws Exception {
+        api.send(patch("/items/" + itemId), ownerId, Map.of("name", "Перфоратор"));
+
+        double primaryReads = reads(ReadTarget.PRIMARY);
+        double replicaReads = reads(ReadTarget.REPLICA);
+        api.send(get("/items/" + itemId), ownerId, null);
+        assertThat(reads(ReadTarget.PRIMARY)).isGreaterThan(primaryReads);
+        assertThat(reads(ReadTarget.REPLICA)).isEqualTo(replicaReads);
+
+        Thread.sleep(STICKY_WINDOW.plusMillis(500).toMillis());
+
+        replicaReads = reads(ReadTarget.REPLICA);
+        api.send(get("/items/" + itemId), ownerId, null);
+        assertThat(reads(ReadTarget.REPLICA)).isGreaterThan(replicaReads);
+    }
+
+    @Test
+    void replicaReadsDoNotFillSecondLevelCache() throws Exception {
+        entityManagerFactory.getCache().evictAll();
+
+        api.send(get("/items/" + itemId), readerId, null);
+        assertThat(entityManagerFactory.getCache().contains(Item.class, itemId)).isFalse();
+
+        routing.setReplicaLag(null);
+        api.send(get("/items/" + itemId), readerId, null);
+        assertThat(entityManagerFactory.getCache().contains(Item.class, itemId)).isTrue();
+    }
+
+    private String applicationName(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status ->
+                jdbc.queryForObject("SELECT current_setting('application_name')", String.class));
+    }
+
+    private double reads(ReadTarget target) {
+        return meterRegistry.get("shareit.datasource.reads")
+                .tag("target", target.name().toLowerCase())
+                .counter()
+                .count();
+    }
+}
@@ -0,0 +1,155 @@
+package ru.practicum.shareit.etag;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.ApiFixture;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.item.ItemService;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.ApiFixture.SHARER_HEADER;
+
+/**
+ * ETag из версий должен совпадать с ETag полного ответа, иначе If-None-Match никогда не даст 304
+ * или, что хуже, даст 304 на изменившийся ответ.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConditionalReadTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    private ApiFixture api;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long ownerId;
+    private long bookerId;
+    private long itemId;
+    private long bookingId;
+
+    @BeforeEach
+    void createBooking() throws Exception {
+        api = new ApiFixture(mvc, mapper);
+        ownerId = api.createUser("owner");
+        bookerId = api.createUser("booker");
+        itemId = api.send(post("/items"), ownerId,
+                Map.of("name", "Дрель", "description", "Ударная дрель", "available", true)).get("id").asLong();
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        bookingId = api.send(post("/bookings"), bookerId, Map.of(
+                "itemId", itemId,
+                "start", start.toString(),
+                "end", start.plusHours(1).toString())).get("id").asLong();
+    }
+
+    @Test
+    void itemETagFromVersionsMatchesReadForOwner() {
+        assertThat(itemService.readETag(itemId, ownerId))
+                .isPresent()
+                .isEqualTo(Optional.of(itemService.read(itemId, ownerId).getETag()));
+    }
+
+    @Test
+    void itemETagFromVersionsMatchesReadForOtherUser() {
+        assertThat(itemService.readETag(itemId, bookerId))
+                .isPresent()
+                .isEqualTo(Optional.of(itemService.read(itemId, bookerId).getETag()));
+        assertThat(itemService.readETag(itemId, bookerId)).isNotEqualTo(itemService.readETag(itemId, ownerId));
+    }
+
+    @Test
+    void bookingETagFromVersionsMatchesRead() {
+        assertThat(bookingService.readETag(bookerId, bookingId))
+                .isPresent()
+                .isEqualTo(Optional.of(bookingService.read(bookerId, bookingId).getETag()));
+        assertThat(bookingService.readETag(ownerId, bookingId))
+                .isEqualTo(Optional.of(bookingService.read(ownerId, bookingId).getETag()));
+    }
+
+    @Test
+    void itemNotModifiedForOwner() throws Exception {
+        assertNotModified("/items/" + itemId, ownerId);
+    }
+
+    @Test
+    void itemNotModifiedForOtherUser() throws Exception {
+        assertNotModified("/items/" + itemId, bookerId);
+    }
+
+    @Test
+    void bookingNotModified() throws Exception {
+        assertNotModified("/bookings/" + bookingId, bookerId);
+    }
+
+    @Test
+    void itemModifiedAfterUpdate() throws Exception {
+        String eTag = eTagOf("/items/" + itemId, ownerId);
+        api.send(patch("/items/" + itemId), ownerId, Map.of("name", "Перфоратор"));
+
+        mvc.perform(get("/items/" + itemId).header(SHARER_HEADER, ownerId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Перфоратор"));
+    }
+
+    /**
+     * Строка изменена в обход этого узла, в кэше второго уровня осталась прежняя версия.
+     */
+    @Test
+    void updateReadsItemPastStaleCache() throws Exception {
+        api.send(get("/items/" + itemId), ownerId, null);
+        jdbcTemplate.update("UPDATE items SET version = version + 1, description = 'Дрель с другого узла' " +
+                "WHERE id = ?", itemId);
+
+        JsonNode item = api.send(patch("/items/" + itemId), ownerId, Map.of("name", "Перфоратор"));
+
+        assertThat(item.get("name").asText()).isEqualTo("Перфоратор");
+        assertThat(item.get("description").asText()).isEqualTo("Дрель с другого узла");
+    }
+
+    private void assertNotModified(String path, long sharerId) throws Exception {
+        String eTag = eTagOf(path, sharerId);
+        assertThat(eTag).isNotNull();
+
+        mvc.perform(get(path).header(SHARER_HEADER, sharerId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(header().string(HttpHeaders.VARY, SHARER_HEADER));
+    }
+
+    private String eTagOf(String path, long sharerId) throws Exception {
+        return mvc.perform(get(path).header(SHARER_HEADER, sharerId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, SHARER_HEADER))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
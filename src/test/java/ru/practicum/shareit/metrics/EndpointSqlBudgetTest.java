@@ -0,0 +1,121 @@
+package ru.practicum.shareit.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.ApiFixture;
+import ru.practicum.shareit.booking.BookingsState;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Бюджеты SQL-запросов основных эндпоинтов. У владельца и бронирующего по нескольку строк,
+ * поэтому ленивая загрузка связи на каждую строку сразу выводит тест за бюджет.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class EndpointSqlBudgetTest {
+    private static final int ROWS = 3;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    private ApiFixture api;
+
+    private long ownerId;
+    private long bookerId;
+    private final List<Long> itemIds = new ArrayList<>();
+    private final List<Long> bookingIds = new ArrayList<>();
+    private final LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+
+    @BeforeEach
+    void createBookings() throws Exception {
+        api = new ApiFixture(mvc, mapper);
+        ownerId = api.createUser("owner");
+        bookerId = api.createUser("booker");
+        for (int i = 0; i < ROWS; i++) {
+            long itemId = api.send(post("/items"), ownerId,
+                    Map.of("name", "Дрель " + i, "description", "Ударная дрель", "available", true)).get("id").asLong();
+            itemIds.add(itemId);
+            bookingIds.add(api.send(post("/bookings"), bookerId, Map.of(
+                    "itemId", itemId,
+                    "start", start.plusHours(i).toString(),
+                    "end", start.plusHours(i).plusMinutes(30).toString())).get("id").asLong());
+        }
+    }
+
+    @Test
+    @SqlStatementBudget(3)
+    void readItemsOfOwner() throws Exception {
+        api.send(get("/items"), ownerId, null);
+    }
+
+    @Test
+    @SqlStatementBudget(2)
+    void readItem() throws Exception {
+        api.send(get("/items/" + itemIds.getFirst()), ownerId, null);
+    }
+
+    @Test
+    @SqlStatementBudget(4)
+    void searchItems() throws Exception {
+        api.send(get("/items/search?text=дрель"), bookerId, null);
+    }
+
+    @Test
+    @SqlStatementBudget(1)
+    void readBookingsOfBooker() throws Exception {
+        api.send(get("/bookings"), bookerId, null);
+    }
+
+    @Test
+    @SqlStatementBudget(1)
+    void readBookingsOfOwner() throws Exception {
+        api.send(get("/bookings/owner"), ownerId, null);
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookingsState.class)
+    @SqlStatementBudget(1)
+    void readBookingsOfBookerByState(BookingsState state) throws Exception {
+        api.send(get("/bookings?state=" + state), bookerId, null);
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookingsState.class)
+    @SqlStatementBudget(1)
+    void readBookingsOfOwnerByState(BookingsState state) throws Exception {
+        api.send(get("/bookings/owner?state=" + state), ownerId, null);
+    }
+
+    @Test
+    @SqlStatementBudget(1)
+    void readBooking() throws Exception {
+        api.send(get("/bookings/" + bookingIds.getFirst()), bookerId, null);
+    }
+
+    @Test
+    @SqlStatementBudget(2)
+    void createBooking() throws Exception {
+        api.send(post("/bookings"), bookerId, Map.of(
+                "itemId", itemIds.getFirst(),
+                "start", start.plusDays(1).toString(),
+                "end", start.plusDays(1).plusMinutes(30).toString()));
+    }
+}
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.metrics;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Тест падает, если его тело выполнило больше value SQL-запросов Hibernate.
+ * Подготовка данных в @BeforeEach не учитывается.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(SqlStatementBudgetExtension.class)
+public @interface SqlStatementBudget {
+    int value();
+}
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.metrics;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+public class SqlStatementBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        counter(context).start(true);
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        SqlStatements statements = counter(context).stop();
+        int budget = context.getRequiredTestMethod().getAnnotation(SqlStatementBudget.class).value();
+        if (statements.getCount() > budget) {
+            throw new AssertionError("Выполнено " + statements.getCount() + " SQL-запросов при бюджете " + budget
+                    + ": " + statements.describeCallSites());
+        }
+    }
+
+    private SqlStatementCounter counter(ExtensionContext context) {
+        return SpringExtension.getApplicationContext(context).getBean(SqlStatementCounter.class);
+    }
+}
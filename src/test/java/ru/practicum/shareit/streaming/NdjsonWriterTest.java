@@ -0,0 +1,52 @@
+package ru.practicum.shareit.streaming;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exception.StreamLimitExceededException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NdjsonWriterTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Test
+    void writesOneObjectPerLine() throws Exception {
+        try (NdjsonWriter writer = new NdjsonWriter(mapper, out, Instant.now().plusSeconds(60), 10)) {
+            writer.write(Map.of("id", 1));
+            writer.write(Map.of("id", 2));
+            assertThat(writer.getCount()).isEqualTo(2);
+        }
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("{\"id\":1}\n{\"id\":2}\n");
+    }
+
+    @Test
+    void stopsAfterMaxRows() throws Exception {
+        try (NdjsonWriter writer = new NdjsonWriter(mapper, out, Instant.now().plusSeconds(60), 2)) {
+            writer.write(Map.of("id", 1));
+            writer.write(Map.of("id", 2));
+
+            assertThatThrownBy(() -> writer.write(Map.of("id", 3)))
+                    .isInstanceOf(StreamLimitExceededException.class);
+        }
+
+        assertThat(out.toString(StandardCharsets.UTF_8).lines()).hasSize(2);
+    }
+
+    @Test
+    void writesNothingAfterDeadline() throws Exception {
+        try (NdjsonWriter writer = new NdjsonWriter(mapper, out, Instant.now().minusSeconds(1), 10)) {
+            assertThatThrownBy(() -> writer.write(Map.of("id", 1)))
+                    .isInstanceOf(StreamLimitExceededException.class);
+        }
+
+        assertThat(out.size()).isZero();
+    }
+}
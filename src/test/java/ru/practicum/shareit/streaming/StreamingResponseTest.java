@@ -0,0 +1,117 @@
+package ru.practicum.shareit.streaming;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.practicum.shareit.ApiFixture;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.ApiFixture.SHARER_HEADER;
+
+/**
+ * NDJSON-ответы: по объекту в строке, а ошибка до первой строки — обычный статус с телом application/json.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class StreamingResponseTest {
+    private static final int ROWS = 3;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    private ApiFixture api;
+
+    private final String word = UUID.randomUUID().toString();
+    private long ownerId;
+    private final List<Long> itemIds = new ArrayList<>();
+    private final List<Long> bookingIds = new ArrayList<>();
+
+    @BeforeEach
+    void createBookings() throws Exception {
+        api = new ApiFixture(mvc, mapper);
+        ownerId = api.createUser("owner");
+        long bookerId = api.createUser("booker");
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        for (int i = 0; i < ROWS; i++) {
+            long itemId = api.send(post("/items"), ownerId,
+                    Map.of("name", "Дрель " + word, "description", "Ударная дрель", "available", true))
+                    .get("id").asLong();
+            itemIds.add(itemId);
+            bookingIds.add(api.send(post("/bookings"), bookerId, Map.of(
+                    "itemId", itemId,
+                    "start", start.toString(),
+                    "end", start.plusHours(1).toString())).get("id").asLong());
+        }
+    }
+
+    @Test
+    void streamsOwnerBookings() throws Exception {
+        List<JsonNode> lines = stream(get("/bookings/owner"), ownerId);
+
+        assertThat(lines).extracting(line -> line.get("id").asLong())
+                .containsExactlyInAnyOrderElementsOf(bookingIds);
+    }
+
+    @Test
+    void streamsSearchResults() throws Exception {
+        List<JsonNode> lines = stream(get("/items/search?text=" + word), ownerId);
+
+        assertThat(lines).extracting(line -> line.get("id").asLong())
+                .containsExactlyInAnyOrderElementsOf(itemIds);
+    }
+
+    @Test
+    void returnsJsonErrorBeforeFirstRow() throws Exception {
+        mvc.perform(get("/items/search?text=" + word + "&from=" + LocalDateTime.now().plusDays(1))
+                        .header(SHARER_HEADER, ownerId)
+                        .accept(NdjsonWriter.MEDIA_TYPE))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.error").value("error"));
+    }
+
+    @Test
+    void returnsJsonErrorForUnknownOwner() throws Exception {
+        mvc.perform(get("/bookings/owner")
+                        .header(SHARER_HEADER, Long.MAX_VALUE)
+                        .accept(NdjsonWriter.MEDIA_TYPE))
+                .andExpect(status().isForbidden())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.error").value("error"));
+    }
+
+    private List<JsonNode> stream(MockHttpServletRequestBuilder request, long sharerId) throws Exception {
+        String response = mvc.perform(request.header(SHARER_HEADER, sharerId).accept(NdjsonWriter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(NdjsonWriter.MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : response.lines().toList()) {
+            lines.add(mapper.readTree(line));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,112 @@
+package ru.practicum.shareit.user;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserExistenceIndexTest {
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final UserRepository users = mock(UserRepository.class);
+    private final List<Long> storedIds = new ArrayList<>();
+    private Runnable duringReload = () -> {
+    };
+    private UserExistenceIndex index;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            duringReload.run();
+            for (long id : storedIds) {
+                ResultSet row = mock(ResultSet.class);
+                when(row.getLong(1)).thenReturn(id);
+                handler.processRow(row);
+            }
+            return null;
+        }).when(jdbc).query(anyString(), any(RowCallbackHandler.class));
+        index = new UserExistenceIndex(jdbc, users, new SimpleMeterRegistry(), Duration.ofMinutes(1));
+    }
+
+    @Test
+    void loadedUsersExistWithoutQueries() {
+        storedIds.addAll(List.of(1L, 2L, 3L));
+        index.reload();
+
+        assertThat(index.exists(1)).isTrue();
+        assertThat(index.exists(3)).isTrue();
+        verify(users, never()).existsById(anyLong());
+    }
+
+    @Test
+    void growsForIdsBeyondLoadedRange() {
+        storedIds.addAll(List.of(1L, 2L));
+        index.reload();
+
+        index.addAfterCommit(100_000);
+
+        assertThat(index.exists(1)).isTrue();
+        assertThat(index.exists(100_000)).isTrue();
+        verify(users, never()).existsById(anyLong());
+        assertThat(index.exists(99_999)).isFalse();
+    }
+
+    @Test
+    void keepsChangesMadeDuringReload() {
+        storedIds.addAll(List.of(1L, 2L));
+        index.reload();
+        // Пользователь 2 удален, а 500 создан на этом узле, пока выборка еще читала старое состояние БД
+        duringReload = () -> {
+            index.removeAfterCommit(2);
+            index.addAfterCommit(500);
+        };
+        index.reload();
+
+        when(users.existsById(2L)).thenReturn(false);
+        assertThat(index.exists(1)).isTrue();
+        assertThat(index.exists(500)).isTrue();
+        assertThat(index.exists(2)).isFalse();
+    }
+
+    @Test
+    void checksMissesInDatabase() {
+        storedIds.add(1L);
+        index.reload();
+        // Пользователь 7 создан на другом узле после загрузки набора
+        when(users.existsById(7L)).thenReturn(true);
+
+        assertThat(index.exists(7)).isTrue();
+        assertThat(index.exists(7)).isTrue();
+        verify(users, times(1)).existsById(7L);
+    }
+
+    @Test
+    void remembersMissingUsers() {
+        index.reload();
+
+        assertThat(index.exists(42)).isFalse();
+        assertThat(index.exists(42)).isFalse();
+        verify(users, times(1)).existsById(42L);
+
+        index.addAfterCommit(42);
+        assertThat(index.exists(42)).isTrue();
+    }
+}